@@ -12,6 +12,7 @@ import java.io.OutputStream;
 
 import com.itextpdf.text.DocumentException;
 
+import planisphere.astro.star.StarCatalogCache;
 import planisphere.config.Config;
 import planisphere.config.ConfigFromFile;
 import planisphere.draw.ChartUtil;
@@ -55,6 +56,7 @@ public final class Build {
     
     log("File saved to " + fullFileName(STAR_CHART_FILE, config));
     log("File saved to " + fullFileName(TRANSPARENCY_FILE, config));
+    log(StarCatalogCache.instance().toString());
     log("Done.");
   }
 
@@ -0,0 +1,200 @@
+package planisphere.astro.almanac;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import planisphere.astro.ephemeris.Body;
+import planisphere.astro.ephemeris.EphemerisMemo;
+import planisphere.astro.moon.FractionIlluminated;
+import planisphere.astro.planets.Planet;
+import planisphere.astro.planets.RiseSet;
+import planisphere.astro.planets.RiseSetEvent;
+import planisphere.astro.planets.Transit;
+import planisphere.astro.time.GregorianCal;
+import planisphere.config.Config;
+
+/**
+ The yearly tables for the configured year and location, computed once, up front.
+
+ <P>Includes:
+ <ul>
+  <li>the time of the Moon's transit, and the fraction of the Moon illuminated at 20h, for every day
+  <li>the time of transit of each planet, on the 15th of every month
+  <li>the times of sunrise, sunset, and the start and end of nautical twilight, for every day (optional)
+ </ul>
+
+ <P>The data is held in arrays of primitives, indexed by the day of the year (0..365) or by the month (1..12),
+ so any single item is looked up directly. Times are whole minutes after local midnight, in the observer's time zone.
+ When there's no event on a given date, the time is {@link #NONE}.
+ The same object can be rendered in any format, without computing anything again.
+
+ <P>When an event falls exactly at 24:00, it's rounded to 00:00 on the next date, and it's assigned to the next date.
+ When a date has two events of the same kind, only the first is kept.
+ Immutable.
+*/
+public final class Almanac {
+
+  /** The time of an event that doesn't happen on a given date - {@value}. */
+  public static final int NONE = -1;
+
+  /** 
+   Compute the tables for the configured year, using the positions from the given ephemeris.
+   @param withSolarEvents if false, then the times of sunrise, sunset, and twilight are not computed, 
+   and asking for them is an error. 
+  */
+  public static Almanac forYear(Config config, EphemerisMemo ephemeris, boolean withSolarEvents) {
+    Almanac result = new Almanac(config.year(), withSolarEvents);
+
+    Transit transit = new Transit(config);
+    result.minutesInto(result.lunarTransits, transit.transitsForEveryDayOfTheYear(jd -> ephemeris.position(Body.Moon, jd)));
+    Map<LocalDate, Double> fractions = FractionIlluminated.forEveryDayOfTheYear(
+      config, jd -> ephemeris.position(Body.Moon, jd), jd -> ephemeris.position(Body.Sun, jd)
+    );
+    for(Map.Entry<LocalDate, Double> fraction : fractions.entrySet()) {
+      result.lunarFractions[result.dayIndex(fraction.getKey())] = fraction.getValue();
+    }
+
+    for(Planet planet : Planet.WITHOUT_EARTH) {
+      Body body = Body.of(planet);
+      for(Optional<LocalDateTime> dateTime : transit.transitsForMidMonth(jd -> ephemeris.position(body, jd))) {
+        if (dateTime.isPresent()) {
+          int month = dateTime.get().getMonthValue() - 1;
+          if (result.planetaryTransits[planet.ordinal()][month] == NONE) {
+            result.planetaryTransits[planet.ordinal()][month] = minutesOf(dateTime.get());
+          }
+        }
+      }
+    }
+
+    if (withSolarEvents) {
+      RiseSet riseSet = new RiseSet(config);
+      List<RiseSetEvent> solarEvents = riseSet.eventsForTheYear(jd -> ephemeris.position(Body.Sun, jd), RiseSet.NAUTICAL_TWILIGHT, RiseSet.SUN);
+      for(RiseSetEvent event : solarEvents) {
+        int[] times = null;
+        if (event.altitude() == RiseSet.SUN) {
+          times = event.isRising() ? result.sunrises : result.sunsets;
+        }
+        else {
+          times = event.isRising() ? result.dawns : result.dusks;
+        }
+        result.minuteInto(times, event.when());
+      }
+    }
+    return result;
+  }
+
+  /** The year of the tables. */
+  public int year() { return year; }
+
+  /** The number of days in the year. */
+  public int numDays() { return numDays; }
+
+  /** The index of the given date, 0..365. The date must be in the year of the tables. */
+  public int dayIndex(LocalDate date) {
+    if (date.getYear() != year) {
+      throw new IllegalArgumentException("Date " + date + " is not in the year of the almanac: " + year);
+    }
+    return date.getDayOfYear() - 1;
+  }
+
+  /** The local time of the Moon's transit, or {@link #NONE}. */
+  public int lunarTransit(int dayIndex) { return lunarTransits[dayIndex]; }
+
+  /** The fraction of the Moon illuminated at 20h local time, 0.00..1.00, rounded to two decimals. */
+  public double lunarFraction(int dayIndex) { return lunarFractions[dayIndex]; }
+
+  /** The local time of the planet's transit on the 15th of the given month (1..12), or {@link #NONE}. */
+  public int planetaryTransit(Planet planet, int month) { return planetaryTransits[planet.ordinal()][month - 1]; }
+
+  /** True only if the times of sunrise, sunset, and twilight were computed. */
+  public boolean hasSolarEvents() { return dawns != null; }
+
+  /** The local time at which nautical twilight starts in the morning, or {@link #NONE}. */
+  public int dawn(int dayIndex) { return solarEvents(dawns)[dayIndex]; }
+
+  /** The local time of sunrise, or {@link #NONE}. */
+  public int sunrise(int dayIndex) { return solarEvents(sunrises)[dayIndex]; }
+
+  /** The local time of sunset, or {@link #NONE}. */
+  public int sunset(int dayIndex) { return solarEvents(sunsets)[dayIndex]; }
+
+  /** The local time at which nautical twilight ends in the evening, or {@link #NONE}. */
+  public int dusk(int dayIndex) { return solarEvents(dusks)[dayIndex]; }
+
+  /** Format a time as HH:mm. Returns the given text for {@link #NONE}. */
+  public static String timeOf(int minutes, String none) {
+    return minutes == NONE ? none : String.format("%02d:%02d", minutes / MINUTES_PER_HOUR, minutes % MINUTES_PER_HOUR);
+  }
+
+  // PRIVATE
+
+  private static final int MINUTES_PER_HOUR = 60;
+  private static final int NUM_MONTHS = 12;
+
+  private final int year;
+  private final int numDays;
+  private final int[] lunarTransits;
+  private final double[] lunarFractions;
+  /** By planet ordinal, then month. */
+  private final int[][] planetaryTransits;
+  /** These are null if the solar events weren't computed. */
+  private final int[] dawns;
+  private final int[] sunrises;
+  private final int[] sunsets;
+  private final int[] dusks;
+
+  private Almanac(int year, boolean withSolarEvents) {
+    this.year = year;
+    this.numDays = GregorianCal.numDaysIn(year);
+    this.lunarTransits = noEvents(numDays);
+    this.lunarFractions = new double[numDays];
+    this.planetaryTransits = new int[Planet.values().length][];
+    for(int i = 0; i < planetaryTransits.length; ++i) {
+      planetaryTransits[i] = noEvents(NUM_MONTHS);
+    }
+    this.dawns = withSolarEvents ? noEvents(numDays) : null;
+    this.sunrises = withSolarEvents ? noEvents(numDays) : null;
+    this.sunsets = withSolarEvents ? noEvents(numDays) : null;
+    this.dusks = withSolarEvents ? noEvents(numDays) : null;
+  }
+
+  private static int[] noEvents(int size) {
+    int[] result = new int[size];
+    Arrays.fill(result, NONE);
+    return result;
+  }
+
+  private static int[] solarEvents(int[] times) {
+    if (times == null) {
+      throw new IllegalStateException("The times of sunrise, sunset, and twilight were not computed.");
+    }
+    return times;
+  }
+
+  private static int minutesOf(LocalDateTime dateTime) {
+    return dateTime.getHour() * MINUTES_PER_HOUR + dateTime.getMinute();
+  }
+
+  /** Each time is assigned to the date on which it falls. */
+  private void minutesInto(int[] times, List<Optional<LocalDateTime>> dateTimes) {
+    for(Optional<LocalDateTime> dateTime : dateTimes) {
+      if (dateTime.isPresent()) {
+        minuteInto(times, dateTime.get());
+      }
+    }
+  }
+
+  /** Ignored if the date is outside the year, or if the date already has a time. */
+  private void minuteInto(int[] times, LocalDateTime dateTime) {
+    if (dateTime.getYear() == year) {
+      int day = dayIndex(dateTime.toLocalDate());
+      if (times[day] == NONE) {
+        times[day] = minutesOf(dateTime);
+      }
+    }
+  }
+}
@@ -0,0 +1,2 @@
+/** The yearly tables of the Moon, planets and Sun, computed once, for any output format. */
+package planisphere.astro.almanac;
\ No newline at end of file
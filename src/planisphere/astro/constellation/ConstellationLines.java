@@ -3,15 +3,17 @@ package planisphere.astro.constellation;
 import static planisphere.util.LogUtil.log;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import planisphere.astro.star.Star;
-import planisphere.astro.star.StarCatalog;
 import planisphere.config.Constants;
 import planisphere.util.DataFileReader;
 
@@ -41,23 +43,22 @@ public class ConstellationLines {
     
    <P>As a diagnostic, this method finds the polyline points (as Stars) that are MISSING from the given starlist, 
    and returns them in a list. The star list has a limiting mag which may exclude items used in a polyline.
+   
+   @param findByIndex finds a star in the whole catalog, using its identifier.
   */
-  public List<Star> scanForAnyMissingStarsInThe(List<Star> givenStarList, StarCatalog starCatalog){
+  public List<Star> scanForAnyMissingStarsInThe(List<Star> givenStarList, Function<Integer, Optional<Star>> findByIndex){
     List<Star> result = new ArrayList<>();
+    Set<Integer> given = new HashSet<>();
+    for(Star star : givenStarList) {
+      given.add(star.INDEX);
+    }
     Set<String> constellations = lines.keySet();
     for (String constellation : constellations) {
       List<List<Integer>> polys = lines.get(constellation);
       for (List<Integer> poly : polys) {
         for (Integer id : poly) {
-          boolean missing = true;
-          for(Star star : givenStarList) {
-            if (star.INDEX.equals(id)) {
-              missing = false;
-              break;
-            }
-          }
-          if (missing) {
-            result.add(lookUpStar(id, starCatalog));
+          if (!given.contains(id)) {
+            result.add(lookUpStar(id, findByIndex));
           }
         }
       }
@@ -116,14 +117,7 @@ public class ConstellationLines {
   }
   
   /** Returns null if not found. */
-  private Star lookUpStar(Integer id, StarCatalog catalog) {
-    Star result = null;
-    for (Star star : catalog.all()) {
-      if (star.INDEX.equals(id)) {
-        result = star;
-        break;
-      }
-    }
-    return result;
+  private Star lookUpStar(Integer id, Function<Integer, Optional<Star>> findByIndex) {
+    return findByIndex.apply(id).orElse(null);
   }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package planisphere.astro.ephemeris;
+
+import planisphere.astro.planets.Planet;
+
+/** 
+ The objects whose positions are held in an {@link Ephemeris}.
+ 
+ <P>Each object has its own length of segment, and number of coefficients per segment. 
+ The Moon moves quickly, so its segments are short. The outer planets move slowly, so their segments are long.
+*/
+public enum Body {
+  
+  Sun(16.0, 12), 
+  Moon(4.0, 13), 
+  Mercury(8.0, 12), 
+  Venus(16.0, 12), 
+  Mars(16.0, 12), 
+  Jupiter(32.0, 12), 
+  Saturn(32.0, 12);
+  
+  /** The body for the given planet. The Earth is not a body, since positions are geocentric. */
+  public static Body of(Planet planet) {
+    if (planet == Planet.Earth) {
+      throw new IllegalArgumentException("The Earth has no geocentric position.");
+    }
+    return valueOf(planet.name());
+  }
+  
+  /** The nominal length of each segment, in days. */
+  double segmentDays() { return segmentDays; }
+  
+  /** The number of coefficients of each Chebyshev series. */
+  int numCoefficients() { return numCoefficients; }
+  
+  private Body(double segmentDays, int numCoefficients) {
+    this.segmentDays = segmentDays;
+    this.numCoefficients = numCoefficients;
+  }
+  
+  private final double segmentDays;
+  private final int numCoefficients;
+}
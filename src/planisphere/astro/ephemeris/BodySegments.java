@@ -0,0 +1,146 @@
+package planisphere.astro.ephemeris;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+import java.util.function.DoubleFunction;
+
+import planisphere.astro.star.Position;
+import planisphere.math.Chebyshev;
+import planisphere.math.Maths;
+import planisphere.math.Vector;
+
+/**
+ The Chebyshev segments for a single body.
+
+ <P>The span of dates is cut into segments of equal length. In each segment, the three components of the
+ unit vector towards the body (x, y, z, in the equatorial frame of date) each have a Chebyshev series.
+ Fitting the rectangular components, instead of the right ascension and declination, avoids the jump
+ in right ascension at 24h, and the singularity at the poles.
+
+ <P>All coefficients are in a single array: segment by segment, then x, y, z within each segment.
+ Immutable.
+*/
+final class BodySegments {
+
+  /**
+   Fit the segments to the given source of positions.
+   The source is only called for dates in the span.
+  */
+  static BodySegments fit(Body body, double jdStart, double jdEnd, DoubleFunction<Position> source) {
+    int numSegments = Math.max(1, (int)Math.ceil((jdEnd - jdStart) / body.segmentDays()));
+    int n = body.numCoefficients();
+    double length = (jdEnd - jdStart) / numSegments;
+    double[] coefficients = new double[numSegments * NUM_COMPONENTS * n];
+    double[][] values = new double[NUM_COMPONENTS][n];
+    for(int segment = 0; segment < numSegments; ++segment) {
+      double a = jdStart + segment * length;
+      double b = segment == numSegments - 1 ? jdEnd : a + length;
+      double[] nodes = Chebyshev.nodes(a, b, n);
+      for(int k = 0; k < n; ++k) {
+        Position pos = source.apply(nodes[k]);
+        values[0][k] = cos(pos.δ) * cos(pos.α);
+        values[1][k] = cos(pos.δ) * sin(pos.α);
+        values[2][k] = sin(pos.δ);
+      }
+      for(int component = 0; component < NUM_COMPONENTS; ++component) {
+        double[] fitted = Chebyshev.fromValues(a, b, values[component]).coefficients();
+        System.arraycopy(fitted, 0, coefficients, (segment * NUM_COMPONENTS + component) * n, n);
+      }
+    }
+    BodySegments unmeasured = new BodySegments(body, jdStart, jdEnd, numSegments, n, coefficients, 0.0);
+    return new BodySegments(body, jdStart, jdEnd, numSegments, n, coefficients, unmeasured.measureError(source));
+  }
+
+  /** Constructor, for coefficients read from a file. The array is not copied. */
+  BodySegments(Body body, double jdStart, double jdEnd, int numSegments, int numCoefficients, double[] coefficients, double maxError) {
+    if (coefficients.length != numSegments * NUM_COMPONENTS * numCoefficients) {
+      throw new IllegalArgumentException("Unexpected number of coefficients for " + body + ": " + coefficients.length);
+    }
+    this.body = body;
+    this.jdStart = jdStart;
+    this.jdEnd = jdEnd;
+    this.numSegments = numSegments;
+    this.numCoefficients = numCoefficients;
+    this.coefficients = coefficients;
+    this.maxError = maxError;
+  }
+
+  /**
+   Write the position at the given date into the given object.
+   @param jd must be in the span.
+  */
+  void position(double jd, Position result) {
+    if (jd < jdStart || jd > jdEnd) {
+      throw new IllegalArgumentException(body + " is outside the span of the ephemeris [" + jdStart + ", " + jdEnd + "]: " + jd);
+    }
+    double length = (jdEnd - jdStart) / numSegments;
+    int segment = Math.min((int)((jd - jdStart) / length), numSegments - 1);
+    double a = jdStart + segment * length;
+    double b = segment == numSegments - 1 ? jdEnd : a + length;
+    double t = (2.0 * jd - a - b) / (b - a);
+    int offset = segment * NUM_COMPONENTS * numCoefficients;
+    double x = Chebyshev.value(coefficients, offset, numCoefficients, t);
+    double y = Chebyshev.value(coefficients, offset + numCoefficients, numCoefficients, t);
+    double z = Chebyshev.value(coefficients, offset + 2 * numCoefficients, numCoefficients, t);
+    result.α = Maths.atan3(y, x);
+    result.δ = Math.atan2(z, Math.sqrt(x*x + y*y));
+  }
+
+  Body body() { return body; }
+  int numSegments() { return numSegments; }
+  int numCoefficients() { return numCoefficients; }
+  /** Not a copy. */
+  double[] coefficients() { return coefficients; }
+  /** Arcseconds. */
+  double maxError() { return maxError; }
+
+  @Override public String toString() {
+    double length = (jdEnd - jdStart) / numSegments;
+    return "Ephemeris for " + body + ": " + numSegments + " segments of " + Maths.round(length * 100.0) / 100.0 + " days, " +
+      numCoefficients + " coefficients, max fit error " + maxError + " arcseconds";
+  }
+
+  // PRIVATE
+
+  private static final int NUM_COMPONENTS = 3;
+
+  /** Compare with the source at this many points per segment, away from the nodes. */
+  private static final int SAMPLES_PER_SEGMENT = 4;
+
+  private final Body body;
+  private final double jdStart;
+  private final double jdEnd;
+  private final int numSegments;
+  private final int numCoefficients;
+  private final double[] coefficients;
+  private final double maxError;
+
+  /** Returns arcseconds. */
+  private double measureError(DoubleFunction<Position> source) {
+    double result = 0.0;
+    Position fitted = new Position();
+    int numSamples = numSegments * SAMPLES_PER_SEGMENT;
+    for(int i = 0; i < numSamples; ++i) {
+      double jd = jdStart + (jdEnd - jdStart) * (i + 0.5) / numSamples;
+      position(jd, fitted);
+      Position exact = source.apply(jd);
+      result = Math.max(result, separation(exact, fitted));
+    }
+    return Maths.radsToDegs(result) * 3600.0;
+  }
+  
+  /** 
+   Radians. Unlike the usual formula with an arc-cosine, this one stays accurate for very small angles, 
+   far below an arcsecond. 
+  */
+  static double separation(Position a, Position b) {
+    Vector u = unitVector(a);
+    Vector v = unitVector(b);
+    return Math.atan2(u.cross(v).length(), u.dot(v));
+  }
+  
+  private static Vector unitVector(Position pos) {
+    return new Vector(cos(pos.δ) * cos(pos.α), cos(pos.δ) * sin(pos.α), sin(pos.δ));
+  }
+}
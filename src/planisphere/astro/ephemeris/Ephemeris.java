@@ -0,0 +1,333 @@
+package planisphere.astro.ephemeris;
+
+import static planisphere.util.LogUtil.log;
+import static planisphere.util.LogUtil.warn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.DoubleFunction;
+
+import planisphere.astro.moon.LunarPosition;
+import planisphere.astro.planets.Planet;
+import planisphere.astro.planets.PlanetPosition;
+import planisphere.astro.planets.SeriesPrecision;
+import planisphere.astro.planets.SolarPosition;
+import planisphere.astro.precession.LongTermPrecession;
+import planisphere.astro.precession.PrecessionModel;
+import planisphere.astro.star.Position;
+import planisphere.config.Config;
+import planisphere.config.ConfigFromFile;
+import planisphere.math.Maths;
+
+/**
+ Positions of the Sun, Moon and planets over a span of dates, fitted with Chebyshev series, in the style of the JPL DE files.
+
+ <P>The yearly tables need the position of the same object at many nearby times. Each position from
+ {@link PlanetPosition}, {@link LunarPosition} or {@link SolarPosition} is a long sum of periodic terms.
+ Here, the span of dates is cut into segments, and each body is fitted with a short Chebyshev series in each segment.
+ A position is then found by looking up its segment, and evaluating 3 series with the Clenshaw recurrence.
+
+ <P>The positions are geocentric, with respect to the mean equator and equinox of date, the same as the positions
+ returned by the underlying classes. For the Sun, it's the apparent position.
+ The error of the fit is measured when each body is fitted, and logged.
+
+ <P>Each body is fitted the first time it's needed. An ephemeris can also be saved to a compact binary file,
+ and read back later, which avoids the fitting entirely. The file for a given year is generated by running
+ {@link #main(String...)}. When a file is present for the configured year, {@link #forYear(Config, PrecessionModel)}
+ uses it, if it has every body, the same span of dates, the same series precision, and the same source.
+ Otherwise, the bodies are fitted in memory.
+
+ <P>The source is checked with a fingerprint: the position of each body at the middle of the span, as computed by
+ the underlying classes when the file was written. If the series data, or the code that evaluates it, has changed
+ since then, then the positions computed now are different, and the file is not used.
+
+ <P>The file for a given year is named <code>ephemeris-YYYY.bin</code>. By default, it's in the working directory.
+ To use a different directory, use the command line setting:
+
+ {@code -DplanisphereEphemerisDirectory=C:\mydirectory}
+
+ <P>Layout, all little-endian:
+<pre>
+  header: magic 'PEP1', version, number of bodies B
+  double    start, end of the span (JD), series precision (arcseconds)
+  then for each of the B bodies:
+  int       ordinal of the body, number of segments S, number of coefficients N
+  double    max fit error (arcseconds)
+  double    fingerprint: right ascension, declination at the middle of the span (radians)
+  double[S*3*N] coefficients, segment by segment, then x, y, z within each segment
+</pre>
+
+ <P>This class is thread-safe.
+*/
+public final class Ephemeris {
+
+  /**
+   The ephemeris for the configured year, over the interval of the given precession model.
+   Read from a file, if a matching one is present; otherwise, fitted in memory as needed.
+   @param precession the source of the obliquity of the ecliptic; it must cover the whole year.
+  */
+  public static Ephemeris forYear(Config config, PrecessionModel precession) {
+    SeriesPrecision seriesPrecision = SeriesPrecision.from(config);
+    Optional<Path> file = location(config.year());
+    if (file.isPresent()) {
+      try {
+        Ephemeris result = read(file.get());
+        if (result.matches(fit(precession.start(), precession.end(), precession, seriesPrecision))) {
+          log("Read the ephemeris from " + file.get());
+          return result;
+        }
+        log("The ephemeris file " + file.get() + " doesn't match the current settings. Fitting in memory.");
+      }
+      catch(IOException ex) {
+        warn("Can't read the ephemeris file. Fitting in memory. " + ex.getMessage());
+      }
+    }
+    return fit(precession.start(), precession.end(), precession, seriesPrecision);
+  }
+
+  /**
+   Fit the bodies over the given span of dates. Each body is fitted the first time it's needed.
+   @param precession the source of the obliquity of the ecliptic; if null, then use the full precession series.
+   It must cover the whole span.
+  */
+  public static Ephemeris fit(double jdStart, double jdEnd, PrecessionModel precession, SeriesPrecision seriesPrecision) {
+    if (!(jdEnd > jdStart)) {
+      throw new IllegalArgumentException("The end of the span must come after the start: " + jdStart + " " + jdEnd);
+    }
+    return new Ephemeris(jdStart, jdEnd, seriesPrecision, precession);
+  }
+
+  /** 
+   Read an ephemeris from a file, using a memory-mapped buffer. 
+   The file must have every {@link Body}, so nothing is ever fitted by the returned object. 
+  */
+  public static Ephemeris read(Path path) throws IOException {
+    MappedByteBuffer mapped = null;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+      throw new IOException("Not an ephemeris file, or the wrong version: " + path);
+    }
+    int numBodies = buffer.getInt();
+    double jdStart = buffer.getDouble();
+    double jdEnd = buffer.getDouble();
+    double arcseconds = buffer.getDouble();
+    Ephemeris result = new Ephemeris(jdStart, jdEnd, SeriesPrecision.of(arcseconds, jdStart, jdEnd), null);
+    try {
+      for(int i = 0; i < numBodies; ++i) {
+        Body body = Body.values()[buffer.getInt()];
+        int numSegments = buffer.getInt();
+        int numCoefficients = buffer.getInt();
+        double maxError = buffer.getDouble();
+        Position fingerprint = new Position();
+        fingerprint.α = buffer.getDouble();
+        fingerprint.δ = buffer.getDouble();
+        result.fingerprints[body.ordinal()] = fingerprint;
+        double[] coefficients = new double[numSegments * NUM_COMPONENTS * numCoefficients];
+        buffer.asDoubleBuffer().get(coefficients);
+        buffer.position(buffer.position() + coefficients.length * Double.BYTES);
+        result.bodies.set(body.ordinal(), new BodySegments(body, jdStart, jdEnd, numSegments, numCoefficients, coefficients, maxError));
+      }
+    }
+    catch(RuntimeException ex) {
+      throw new IOException("Corrupt ephemeris file: " + path + " " + ex.getMessage(), ex);
+    }
+    if (buffer.hasRemaining()) {
+      throw new IOException("Ephemeris file has an unexpected size: " + path);
+    }
+    for(Body body : Body.values()) {
+      if (result.bodies.get(body.ordinal()) == null) {
+        throw new IOException("Ephemeris file is missing " + body + ": " + path);
+      }
+    }
+    return result;
+  }
+
+  /** Write all bodies to a file, fitting any that haven't been fitted yet. */
+  public void write(Path path) throws IOException {
+    int size = HEADER_SIZE;
+    for(Body body : Body.values()) {
+      size = size + BODY_HEADER_SIZE + segmentsFor(body).coefficients().length * Double.BYTES;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(Body.values().length);
+    buffer.putDouble(jdStart).putDouble(jdEnd).putDouble(seriesPrecision.arcseconds());
+    for(Body body : Body.values()) {
+      BodySegments segments = segmentsFor(body);
+      buffer.putInt(body.ordinal()).putInt(segments.numSegments()).putInt(segments.numCoefficients());
+      buffer.putDouble(segments.maxError());
+      Position fingerprint = fingerprintFor(body);
+      buffer.putDouble(fingerprint.α).putDouble(fingerprint.δ);
+      for(double coefficient : segments.coefficients()) {
+        buffer.putDouble(coefficient);
+      }
+    }
+    buffer.flip();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   The position of the body at the given date.
+   @param jd must be in the span of this ephemeris.
+  */
+  public Position position(Body body, double jd) {
+    Position result = new Position();
+    position(body, jd, result);
+    return result;
+  }
+
+  /** As above, but writing into the given object. No objects are created. */
+  public void position(Body body, double jd, Position result) {
+    segmentsFor(body).position(jd, result);
+  }
+
+  /** Start of the span. */
+  public double start() { return jdStart; }
+
+  /** End of the span. */
+  public double end() { return jdEnd; }
+
+  /** The largest error of the fit, over the bodies fitted or read so far, in arcseconds. */
+  public double maxErrorArcseconds() {
+    double result = 0.0;
+    for(int i = 0; i < bodies.length(); ++i) {
+      BodySegments segments = bodies.get(i);
+      if (segments != null) {
+        result = Math.max(result, segments.maxError());
+      }
+    }
+    return result;
+  }
+
+  /**
+   Generate the ephemeris file for the configured year.
+   @param args optional; the full name of the output file.
+  */
+  public static void main(String... args) throws IOException {
+    Config config = new ConfigFromFile().init();
+    PrecessionModel precession = PrecessionModel.forYear(config.year());
+    Ephemeris ephemeris = fit(precession.start(), precession.end(), precession, SeriesPrecision.from(config));
+    Path path = args.length > 0 ? Paths.get(args[0]) : defaultPath(config.year());
+    ephemeris.write(path);
+    log("Wrote the ephemeris to " + path.toAbsolutePath() + ", max fit error " + ephemeris.maxErrorArcseconds() + " arcseconds");
+  }
+
+  // PRIVATE
+
+  /** 'PEP1' */
+  private static final int MAGIC = 0x31504550;
+  /** Increase this when the layout of the file changes. */
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 3 * Integer.BYTES + 3 * Double.BYTES;
+  private static final int BODY_HEADER_SIZE = 3 * Integer.BYTES + 3 * Double.BYTES;
+  /** Far below the precision of any chart, but far above the differences from one platform to the next. */
+  private static final double FINGERPRINT_TOLERANCE = Maths.arcsecToRads(1.0E-6);
+  private static final int NUM_COMPONENTS = 3;
+
+  private final double jdStart;
+  private final double jdEnd;
+  private final SeriesPrecision seriesPrecision;
+  /** Null when read from a file. Not needed in that case, since every body is present. */
+  private final PrecessionModel precession;
+  /** 
+   By ordinal. Read without a lock, since positions are looked up very often. 
+   Only fitting a missing body takes the lock. 
+  */
+  private final AtomicReferenceArray<BodySegments> bodies = new AtomicReferenceArray<>(Body.values().length);
+  /** Guards the fitting of the bodies, and the fingerprints. */
+  private final Object lock = new Object();
+  /** By ordinal. Guarded by the lock. Present only when read from a file; otherwise, computed as needed. */
+  private final Position[] fingerprints = new Position[Body.values().length];
+
+  private Ephemeris(double jdStart, double jdEnd, SeriesPrecision seriesPrecision, PrecessionModel precession) {
+    this.jdStart = jdStart;
+    this.jdEnd = jdEnd;
+    this.seriesPrecision = seriesPrecision;
+    this.precession = precession;
+  }
+
+  private static Optional<Path> location(int year) {
+    Path path = defaultPath(year);
+    return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+  }
+
+  private static Path defaultPath(int year) {
+    String directory = System.getProperty("planisphereEphemerisDirectory");
+    String fileName = "ephemeris-" + year + ".bin";
+    return directory == null ? Paths.get(fileName) : Paths.get(directory, fileName);
+  }
+
+  /** The given ephemeris is fitted in memory. Nothing is fitted by this method. */
+  private boolean matches(Ephemeris that) {
+    boolean result = this.jdStart == that.jdStart && this.jdEnd == that.jdEnd && 
+      this.seriesPrecision.arcseconds() == that.seriesPrecision.arcseconds();
+    for(Body body : Body.values()) {
+      if (result) {
+        result = BodySegments.separation(this.fingerprintFor(body), that.fingerprintFor(body)) <= FINGERPRINT_TOLERANCE;
+      }
+    }
+    return result;
+  }
+
+  /** The position of the body at the middle of the span, from the source of the positions, not from the fit. */
+  private Position fingerprintFor(Body body) {
+    synchronized (lock) {
+      Position result = fingerprints[body.ordinal()];
+      if (result == null) {
+        result = sourceFor(body).apply((jdStart + jdEnd) / 2.0);
+        fingerprints[body.ordinal()] = result;
+      }
+      return result;
+    }
+  }
+
+  /** Fit the body if needed. Once the body is present, no lock is taken. */
+  private BodySegments segmentsFor(Body body) {
+    BodySegments result = bodies.get(body.ordinal());
+    if (result == null) {
+      synchronized (lock) {
+        result = bodies.get(body.ordinal());
+        if (result == null) {
+          result = BodySegments.fit(body, jdStart, jdEnd, sourceFor(body));
+          log(result.toString());
+          bodies.set(body.ordinal(), result);
+        }
+      }
+    }
+    return result;
+  }
+
+  /** The source of the positions, for fitting. */
+  private DoubleFunction<Position> sourceFor(Body body) {
+    DoubleFunction<Position> result = null;
+    if (body == Body.Sun) {
+      SolarPosition sun = new SolarPosition(seriesPrecision);
+      LongTermPrecession fullPrecession = new LongTermPrecession();
+      result = jd -> sun.apparentPosition(jd, precession == null ? fullPrecession.obliquity(jd) : precession.obliquity(jd));
+    }
+    else if (body == Body.Moon) {
+      LunarPosition moon = new LunarPosition(precession);
+      result = moon::position;
+    }
+    else {
+      PlanetPosition planet = new PlanetPosition(Planet.valueOf(body.name()), precession, seriesPrecision);
+      result = planet::position;
+    }
+    return result;
+  }
+}
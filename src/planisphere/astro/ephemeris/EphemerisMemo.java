@@ -0,0 +1,156 @@
+package planisphere.astro.ephemeris;
+
+import java.util.Arrays;
+
+import planisphere.astro.star.Position;
+
+/**
+ Remembers the positions returned by an {@link Ephemeris}, while generating a single chart.
+
+ <P>Different parts of a chart often need the position of the same body at the same moment.
+ For example, the table of sunrise and sunset samples the Sun every hour, which includes the moments
+ used for the Sun's marks on the ecliptic, and for the fraction of the Moon that's illuminated.
+ Here, each position is computed once, and looked up after that.
+
+ <P>The moments are keyed by their Julian Date, to the nearest millisecond. Two requests less than a millisecond apart
+ share the same position, which is the one computed first. That's far below the precision of any chart.
+
+ <P>For each body, the positions are kept in a hash table of primitives. Each table starts small, 
+ and doubles in size when it's three-quarters full, up to a fixed limit. So a body that's asked for only a few times costs 
+ only a few slots. When a table at the limit is full, it's cleared, and starts over. 
+ The number of lookups, and the number of hits, are counted for each body.
+
+ <P>Not thread-safe. Use one object per chart.
+*/
+public final class EphemerisMemo {
+
+  public EphemerisMemo(Ephemeris ephemeris) {
+    this.ephemeris = ephemeris;
+  }
+
+  /**
+   The position of the body at the given date.
+   @param jd must be in the span of the underlying ephemeris.
+  */
+  public Position position(Body body, double jd) {
+    Table table = tableFor(body);
+    ++table.lookups;
+    long key = Math.round(jd * MILLISECONDS_PER_DAY);
+    int slot = slotFor(table, key);
+    if (table.keys[slot] == key) {
+      ++table.hits;
+    }
+    else {
+      if (table.isFull()) {
+        table.makeRoom();
+        slot = slotFor(table, key);
+      }
+      ephemeris.position(body, jd, scratch);
+      table.keys[slot] = key;
+      table.α[slot] = scratch.α;
+      table.δ[slot] = scratch.δ;
+      ++table.size;
+    }
+    Position result = new Position();
+    result.α = table.α[slot];
+    result.δ = table.δ[slot];
+    return result;
+  }
+
+  /** The number of positions requested for the given body. */
+  public long lookups(Body body) {
+    return tables[body.ordinal()] == null ? 0 : tables[body.ordinal()].lookups;
+  }
+
+  /** The number of positions for the given body that didn't need to be computed again. */
+  public long hits(Body body) {
+    return tables[body.ordinal()] == null ? 0 : tables[body.ordinal()].hits;
+  }
+
+  /** The lookups and hits for each body used so far. */
+  @Override public String toString() {
+    StringBuilder result = new StringBuilder("Ephemeris memo:");
+    for(Body body : Body.values()) {
+      if (tables[body.ordinal()] != null) {
+        result.append(" " + body + " " + hits(body) + " hits of " + lookups(body) + " lookups.");
+      }
+    }
+    return result.toString();
+  }
+
+  // PRIVATE
+
+  private static final double MILLISECONDS_PER_DAY = 86_400_000.0;
+  private static final int MIN_CAPACITY = 1 << 6;
+  private static final int MAX_CAPACITY = 1 << 15;
+  private static final long EMPTY = Long.MIN_VALUE;
+  /** Fibonacci hashing; the key is a count of milliseconds, so neighbouring keys are common. */
+  private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  private final Ephemeris ephemeris;
+  /** By ordinal. Created when first needed. */
+  private final Table[] tables = new Table[Body.values().length];
+  private final Position scratch = new Position();
+
+  /** Open addressing, with linear probing. The capacity is always a power of 2. */
+  private static final class Table {
+    Table(){
+      allocate(MIN_CAPACITY);
+    }
+    long[] keys;
+    double[] α;
+    double[] δ;
+    int shift;
+    int size;
+    long lookups;
+    long hits;
+    /** Three-quarters full keeps the probe sequences short. */
+    boolean isFull() {
+      return size == keys.length * 3 / 4;
+    }
+    /** Double the capacity, keeping the positions. At the maximum capacity, start over instead. */
+    void makeRoom() {
+      long[] oldKeys = keys;
+      double[] oldα = α;
+      double[] oldδ = δ;
+      allocate(oldKeys.length < MAX_CAPACITY ? 2 * oldKeys.length : oldKeys.length);
+      if (oldKeys.length < MAX_CAPACITY) {
+        for(int i = 0; i < oldKeys.length; ++i) {
+          if (oldKeys[i] != EMPTY) {
+            int slot = slotFor(this, oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            α[slot] = oldα[i];
+            δ[slot] = oldδ[i];
+            ++size;
+          }
+        }
+      }
+    }
+    private void allocate(int capacity) {
+      keys = new long[capacity];
+      α = new double[capacity];
+      δ = new double[capacity];
+      Arrays.fill(keys, EMPTY);
+      shift = 64 - Integer.numberOfTrailingZeros(capacity);
+      size = 0;
+    }
+  }
+
+  private Table tableFor(Body body) {
+    Table result = tables[body.ordinal()];
+    if (result == null) {
+      result = new Table();
+      tables[body.ordinal()] = result;
+    }
+    return result;
+  }
+
+  /** The slot holding the key, or the empty slot where it belongs. */
+  private static int slotFor(Table table, long key) {
+    int result = (int)((key * MULTIPLIER) >>> table.shift);
+    while (table.keys[result] != EMPTY && table.keys[result] != key) {
+      result = (result + 1) & (table.keys.length - 1);
+    }
+    return result;
+  }
+}
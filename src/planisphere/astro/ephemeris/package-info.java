@@ -0,0 +1,2 @@
+/** Positions of the Sun, Moon and planets, fitted with Chebyshev series over a span of dates. */
+package planisphere.astro.ephemeris;
\ No newline at end of file
@@ -1,6 +1,7 @@
 package planisphere.astro.moon;
 
 import planisphere.astro.precession.LongTermPrecession;
+import planisphere.astro.precession.PrecessionModel;
 import planisphere.astro.star.Position;
 import planisphere.math.Maths;
 
@@ -22,15 +23,28 @@ public final class EclipticCoords {
   
   public EclipticCoords() { }
   
+  /** Uses the full series for the obliquity. See {@link #toRaDecForObliquity(double)}. */
   public Position toRaDec(double jd) {
-    Position result = new Position();
     LongTermPrecession precession = new LongTermPrecession();
-    double ε = precession.obliquity(jd);
+    return toRaDecForObliquity(precession.obliquity(jd));
+  }
+  
+  /** 
+   When converting many coordinates for nearby dates, the obliquity can come from a {@link PrecessionModel}.
+   @param ε the obliquity of the ecliptic, in radians.
+  */
+  public Position toRaDecForObliquity(double ε) {
+    Position result = new Position();
+    toRaDecForObliquity(ε, result);
+    return result;
+  }
+  
+  /** As above, but writing into the given object. */
+  public void toRaDecForObliquity(double ε, Position result) {
     result.δ = asin(sin(β)*cos(ε) + cos(β)*sin(ε)*sin(λ)); //rads, -pi/2..pi/2
     double numer = sin(λ)*cos(ε) - tan(β)*sin(ε);
     double denom = cos(λ);
     result.α = Maths.atan3(numer, denom); //rads, 0..2pi
-    return result;
   }
 
   /** Debugging only. */
@@ -2,12 +2,15 @@ package planisphere.astro.moon;
 
 import static java.lang.Math.acos;
 import static java.lang.Math.cos;
+import static java.lang.Math.sin;
 
 import java.time.LocalDate;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import planisphere.astro.planets.SolarPosition;
+import planisphere.astro.star.Position;
 import planisphere.astro.time.GregorianCal;
 import planisphere.config.Config;
 import planisphere.config.Constants;
@@ -24,6 +27,22 @@ public final class FractionIlluminated {
   
   /** Return the fraction illumintaed for every day of the year at 20h, in the configured offset from UT. */
   public Map<LocalDate, Double> forEveryDayOfTheYear(Config config){
+    return forEveryDayOfTheYear(config, this::fraction);
+  }
+  
+  /** 
+   As above, but from the positions (RA, DEC) of the Moon and the Sun, given by the caller.
+   Useful when the positions come from a cached ephemeris. 
+  */
+  public static Map<LocalDate, Double> forEveryDayOfTheYear(Config config, Function<Double, Position> moon, Function<Double, Position> sun){
+    return forEveryDayOfTheYear(config, jd -> fraction(moon.apply(jd), sun.apply(jd)));
+  }
+  
+  //using these fields means these objects won't repeatedly read the file system
+  private SolarPosition solarPosition;
+  private LunarPosition lunarPosition;
+  
+  private static Map<LocalDate, Double> forEveryDayOfTheYear(Config config, Function<Double, Double> fractionAt){
     Map<LocalDate, Double> result = new LinkedHashMap<>();
     LocalDate day = LocalDate.of(config.year(), 1, 1); //start with Jan 1
     while (day.getYear() == config.year()) {
@@ -31,7 +50,7 @@ public final class FractionIlluminated {
         day.getYear(), day.getMonthValue(), day.getDayOfMonth(), Constants.LOCAL_EVENING_HOUR, 0, 0, 0, 
         config.hoursOffsetFromUT(), config.minutesOffsetFromUT()
       );
-      Double fraction = fraction(jd);
+      Double fraction = fractionAt.apply(jd);
       result.put(day, fraction);
       day = day.plusDays(1);
     }
@@ -50,6 +69,21 @@ public final class FractionIlluminated {
     EclipticCoords moon = lunarPosition.λβ(jd);
     double λ0 = solarPosition.apparentλ(jd);
     double ψ = acos(cos(moon.β) * cos(moon.λ - λ0)); //0..pi
+    return fromElongation(ψ);
+  }
+  
+  /** 
+   As above, for the given positions of the Moon and the Sun, at the same moment.
+   The elongation of the Moon from the Sun is the angle between the two positions.
+  */
+  public static Double fraction(Position moon, Position sun) {
+    double cosψ = sin(moon.δ) * sin(sun.δ) + cos(moon.δ) * cos(sun.δ) * cos(moon.α - sun.α);
+    double ψ = acos(Math.max(-1.0, Math.min(1.0, cosψ))); //0..pi
+    return fromElongation(ψ);
+  }
+
+  /** The elongation of the Moon from the Sun, 0..pi. */
+  private static Double fromElongation(double ψ) {
     double i = Math.PI - ψ; //phase angle = selenographic elongation of the Earth from the Sun; 0..pi
     double result = (1 + cos(i)) * 0.5;
     
@@ -62,10 +96,6 @@ public final class FractionIlluminated {
     return result;
   }
 
-  //using these fields means these objects won't repeatedly read the file system
-  private SolarPosition solarPosition;
-  private LunarPosition lunarPosition;
-  
   public static void main(String... args) {
     FractionIlluminated frac = new FractionIlluminated(new SolarPosition(), new LunarPosition());
     for(int i = 1; i <= 28; ++i) {
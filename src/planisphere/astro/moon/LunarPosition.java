@@ -1,7 +1,7 @@
 package planisphere.astro.moon;
 
-import java.util.List;
-
+import planisphere.astro.precession.LongTermPrecession;
+import planisphere.astro.precession.PrecessionModel;
 import planisphere.astro.star.Position;
 import planisphere.astro.time.AstroUtil;
 import planisphere.astro.time.GregorianCal;
@@ -23,65 +23,80 @@ import static java.lang.Math.*;
  but I don't understand the paper. 
  It's also available in <a href='https://ui.adsabs.harvard.edu/abs/1991ltpf.book.....C/abstract'>book form</a>, 
  but I can't find or view the book anywhere. 
+ 
+ <P>The methods taking an output object don't create any objects. 
+ This class reuses internal scratch space from one call to the next, so it's not thread-safe: use one object per thread.
 */
 public final class LunarPosition {
+  
+  /** The obliquity of the ecliptic comes from the full precession series. */
+  public LunarPosition() {
+    this(null);
+  }
+  
+  /** 
+   The obliquity of the ecliptic comes from the given model. 
+   All dates passed to {@link #position(double)} must be in the model's interval.
+   @param precession if null, then use the full precession series 
+  */
+  public LunarPosition(PrecessionModel precession) {
+    this.precession = precession;
+  }
 
   /** The position of the Moon with respect to the mean equator and equinox of date, in spherical ecliptic coords. */
   public EclipticCoords λβ(double jd) {
+    EclipticCoords result = new EclipticCoords();
+    λβ(jd, result);
+    return result;
+  }
+  
+  /** As above, but writing into the given object. */
+  public void λβ(double jd, EclipticCoords result) {
     //remember: the amplitudes are in degrees, and the rest are in rads
     double T = AstroUtil.julianCenturiesSinceJ2000(jd);
-    Angles a = angles(T); //rads
-    double λ = contributionsFrom(LunarPositionDataLoader.periodicTermsλ(), a, T); //degrees
-    λ = λ + 3958 * sin(a.A1) + 1962*sin(a.Lp - a.F) + 318 * sin(a.A2); //degrees
-    λ = a.Lp + degToRads(λ/1_000_000.0); //rads
+    //radians, in range 0..2pi
+    double Lp = degToRads(in360(218.316_4591 + 481_267.881_34236 * T - 0.001_3268 *T*T + T*T*T/538_841.0   - T*T*T*T/65_194_000.0)); 
+    double D =  degToRads(in360(297.850_2042 + 445_267.111_5168  * T - 0.001_6300 *T*T + T*T*T/545_868.0   - T*T*T*T/113_065_000.0));
+    double M =  degToRads(in360(357.529_1092 +  35_999.050_2909  * T - 0.000_1536 *T*T + T*T*T/24_490_000.0                     ));
+    double Mp = degToRads(in360(134.963_4114 + 477_198.867_6313  * T + 0.008_9970 *T*T + T*T*T/69_699.0    - T*T*T*T/14_712_000.0));
+    double F =  degToRads(in360( 93.272_0993 + 483_202.017_5273  * T - 0.003_4029 *T*T - T*T*T/3_526_000.0 + T*T*T*T/863_310_000.0));
+    double A1 = degToRads(in360(119.75 +     131.849 * T));
+    double A2 = degToRads(in360(53.09  + 479_264.290 * T));
+    double A3 = degToRads(in360(313.45 + 481_266.484 * T));
     
-    double β = contributionsFrom(LunarPositionDataLoader.periodicTermsβ(), a, T); //degrees
-    β = β - 2235*sin(a.Lp) + 382*sin(a.A3) + 175*sin(a.A1 - a.F) + 175*sin(a.A1 + a.F) + 127*sin(a.Lp - a.Mp) - 115*sin(a.Lp + a.Mp); //degrees
-    β = degToRads(β/1_000_000.0); //rads
+    multiples.set(D, M, Mp, F);
+    double E = 1.0 - 0.002_516*T - 0.000_0074*T*T; //eccentricity of the Earth's orbit
     
-    EclipticCoords result = new EclipticCoords(λ, β);
-    return result;
+    double λ = LunarPositionDataLoader.periodicTermsλ().sum(multiples, E); //degrees
+    λ = λ + 3958 * sin(A1) + 1962*sin(Lp - F) + 318 * sin(A2); //degrees
+    result.λ = Lp + degToRads(λ/1_000_000.0); //rads
+    
+    double β = LunarPositionDataLoader.periodicTermsβ().sum(multiples, E); //degrees
+    β = β - 2235*sin(Lp) + 382*sin(A3) + 175*sin(A1 - F) + 175*sin(A1 + F) + 127*sin(Lp - Mp) - 115*sin(Lp + Mp); //degrees
+    result.β = degToRads(β/1_000_000.0); //rads
   }
   
   /** The position of the Moon with respect to the mean equator and equinox of date, in spherical equatorial coords. */
   public Position position(double jd) {
-    return λβ(jd).toRaDec(jd);
-  }
-  
-  /** Radians, in range 0..2pi. */
-  private Angles angles(double T) {
-    Angles result = new Angles();
-    result.Lp = degToRads(in360(218.316_4591 + 481_267.881_34236 * T - 0.001_3268 *T*T + T*T*T/538_841.0   - T*T*T*T/65_194_000.0)); 
-    result.D =  degToRads(in360(297.850_2042 + 445_267.111_5168  * T - 0.001_6300 *T*T + T*T*T/545_868.0   - T*T*T*T/113_065_000.0));
-    result.M =  degToRads(in360(357.529_1092 +  35_999.050_2909  * T - 0.000_1536 *T*T + T*T*T/24_490_000.0                     ));
-    result.Mp = degToRads(in360(134.963_4114 + 477_198.867_6313  * T + 0.008_9970 *T*T + T*T*T/69_699.0    - T*T*T*T/14_712_000.0));
-    result.F =  degToRads(in360( 93.272_0993 + 483_202.017_5273  * T - 0.003_4029 *T*T - T*T*T/3_526_000.0 + T*T*T*T/863_310_000.0));
-    
-    result.A1 = degToRads(in360(119.75 +     131.849 * T));
-    result.A2 = degToRads(in360(53.09  + 479_264.290 * T));
-    result.A3 = degToRads(in360(313.45 + 481_266.484 * T));
+    Position result = new Position();
+    position(jd, result);
     return result;
   }
   
-  private static final class Angles {
-    double D;
-    double M;
-    double Mp;
-    double F;
-    double Lp;
-    double A1;
-    double A2;
-    double A3;
+  /** As above, but writing into the given object. */
+  public void position(double jd, Position result) {
+    λβ(jd, ecliptic);
+    double ε = precession == null ? fullSeries.obliquity(jd) : precession.obliquity(jd);
+    ecliptic.toRaDecForObliquity(ε, result);
   }
   
-  /** Returns degrees. */
-  private double contributionsFrom(List<PeriodicTerm> periodicTerms, Angles angle, double T) {
-    double result = 0.0;
-    for(PeriodicTerm pt : periodicTerms) {
-      result = result + pt.contribution(angle.D, angle.M, angle.Mp, angle.F, T);
-    }
-    return result;
-  }
+  private final PrecessionModel precession;
+  /** Used only when there's no model. */
+  private final LongTermPrecession fullSeries = new LongTermPrecession();
+  
+  /** Scratch space. */
+  private final MultipleAngles multiples = new MultipleAngles();
+  private final EclipticCoords ecliptic = new EclipticCoords();
   
   public static void main(String[] args) {
     LunarPosition moon = new LunarPosition();
@@ -13,24 +13,24 @@ import planisphere.util.LogUtil;
 */
 final class LunarPositionDataLoader {
 
-  /** Return a data structure to the caller containing all periodic terms for the Moon's λ. */
-  static List<PeriodicTerm> periodicTermsλ() {
+  /** Return a data structure to the caller containing all periodic terms for the Moon's λ, packed into flat arrays. */
+  static PeriodicTermTable periodicTermsλ() {
     return PERIODIC_TERMS_λ;
   }
 
-  /** Return a data structure to the caller containing all periodic terms for the Moon's β. */
-  static List<PeriodicTerm> periodicTermsβ() {
+  /** Return a data structure to the caller containing all periodic terms for the Moon's β, packed into flat arrays. */
+  static PeriodicTermTable periodicTermsβ() {
     return PERIODIC_TERMS_β;
   }
   
   // PRIVATE 
   
-  private static List<PeriodicTerm> PERIODIC_TERMS_λ;
-  private static List<PeriodicTerm> PERIODIC_TERMS_β;
+  private static PeriodicTermTable PERIODIC_TERMS_λ;
+  private static PeriodicTermTable PERIODIC_TERMS_β;
   private static final String FILE_NAME_λ = "elp-2000-82-long-r.utf8";
   private static final String FILE_NAME_β = "elp-2000-82-lat.utf8";
   
-  private static List<PeriodicTerm> readPeriodicTermData(String fileName) {
+  private static PeriodicTermTable readPeriodicTermData(String fileName) {
     List<PeriodicTerm> result = new ArrayList<PeriodicTerm>();
     DataFileReader reader = new DataFileReader();
     List<String> lines = reader.readFile(LunarPositionDataLoader.class, fileName);
@@ -39,7 +39,7 @@ final class LunarPositionDataLoader {
         result.add(periodicTermFor(line));
       }
     }
-    return result;
+    return PeriodicTermTable.of(result);
   }
   
   /*  0,0,1,0,6288774,-20905355     */
@@ -0,0 +1,80 @@
+package planisphere.astro.moon;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+/**
+ The sines and cosines of small multiples of the four fundamental arguments D, M, M' and F.
+
+ <P>Each periodic term of the Moon needs the sine of an integer combination of the four arguments.
+ Instead of calling Math.sin once per term, the sine and cosine of each multiple of each argument
+ are found once, with the angle-addition formulas. The sine for each term is then built from those
+ values, with the same formulas, using only multiplications and additions.
+
+ <P>Mutable scratch space, reused from one date to the next. Not thread-safe.
+*/
+final class MultipleAngles {
+
+  /** The largest multiple of any argument, in absolute value - {@value}. */
+  static final int MAX_MULTIPLE = 4;
+
+  /**
+   Compute the multiples for the given values of the arguments, in radians.
+   Replaces any values from a previous call.
+  */
+  void set(double D, double M, double Mp, double F) {
+    fill(D, sinD, cosD);
+    fill(M, sinM, cosM);
+    fill(Mp, sinMp, cosMp);
+    fill(F, sinF, cosF);
+  }
+
+  /** Return sin(d*D + m*M + mp*M' + f*F). Each multiple is in the range -{@value #MAX_MULTIPLE}..+{@value #MAX_MULTIPLE}. */
+  double sine(int d, int m, int mp, int f) {
+    double s = sinOf(d, sinD);
+    double c = cosD[Math.abs(d)];
+    //add each argument in turn: sin(a+b) = sin a cos b + cos a sin b, cos(a+b) = cos a cos b - sin a sin b
+    double sinB = sinOf(m, sinM);
+    double cosB = cosM[Math.abs(m)];
+    double temp = s * cosB + c * sinB;
+    c = c * cosB - s * sinB;
+    s = temp;
+    sinB = sinOf(mp, sinMp);
+    cosB = cosMp[Math.abs(mp)];
+    temp = s * cosB + c * sinB;
+    c = c * cosB - s * sinB;
+    s = temp;
+    sinB = sinOf(f, sinF);
+    cosB = cosF[Math.abs(f)];
+    return s * cosB + c * sinB;
+  }
+
+  // PRIVATE
+
+  /** Indexed by multiple, 0..MAX_MULTIPLE. */
+  private final double[] sinD = new double[MAX_MULTIPLE + 1];
+  private final double[] cosD = new double[MAX_MULTIPLE + 1];
+  private final double[] sinM = new double[MAX_MULTIPLE + 1];
+  private final double[] cosM = new double[MAX_MULTIPLE + 1];
+  private final double[] sinMp = new double[MAX_MULTIPLE + 1];
+  private final double[] cosMp = new double[MAX_MULTIPLE + 1];
+  private final double[] sinF = new double[MAX_MULTIPLE + 1];
+  private final double[] cosF = new double[MAX_MULTIPLE + 1];
+
+  /** sin((k+1)x) = sin(kx) cos x + cos(kx) sin x; cos((k+1)x) = cos(kx) cos x - sin(kx) sin x. */
+  private static void fill(double x, double[] sines, double[] cosines) {
+    double sinX = sin(x);
+    double cosX = cos(x);
+    sines[0] = 0.0;
+    cosines[0] = 1.0;
+    for(int k = 1; k <= MAX_MULTIPLE; ++k) {
+      sines[k] = sines[k - 1] * cosX + cosines[k - 1] * sinX;
+      cosines[k] = cosines[k - 1] * cosX - sines[k - 1] * sinX;
+    }
+  }
+
+  /** The sine is odd: sin(-kx) = -sin(kx). */
+  private static double sinOf(int multiple, double[] sines) {
+    return multiple < 0 ? -sines[-multiple] : sines[multiple];
+  }
+}
@@ -0,0 +1,87 @@
+package planisphere.astro.moon;
+
+import java.util.List;
+
+/**
+ The periodic terms for the Moon's λ or β, packed into flat arrays of primitives.
+
+ <P>The terms are summed in three groups, according to the power of the eccentricity factor E
+ that multiplies them: |M| = 0, 1, or 2. The factor is applied once to each group, instead of once per term.
+ Immutable.
+*/
+final class PeriodicTermTable {
+
+  /** Pack the terms read from the data file. */
+  static PeriodicTermTable of(List<PeriodicTerm> terms) {
+    PeriodicTermTable result = new PeriodicTermTable(terms.size());
+    for(int i = 0; i < terms.size(); ++i) {
+      PeriodicTerm term = terms.get(i);
+      checkMultiple(term.D);
+      checkMultiple(term.M);
+      checkMultiple(term.Mp);
+      checkMultiple(term.F);
+      if (Math.abs(term.M) > 2) {
+        throw new IllegalArgumentException("Unexpected multiple of M: " + term.M);
+      }
+      result.D[i] = term.D;
+      result.M[i] = term.M;
+      result.Mp[i] = term.Mp;
+      result.F[i] = term.F;
+      result.amplitude[i] = term.amplitude;
+    }
+    return result;
+  }
+
+  /**
+   The sum of all terms. Returns degrees, in the units of the data file.
+   @param angles already set for the date
+   @param E the eccentricity factor for the date
+  */
+  double sum(MultipleAngles angles, double E) {
+    double sum0 = 0.0;
+    double sum1 = 0.0;
+    double sum2 = 0.0;
+    for(int i = 0; i < amplitude.length; ++i) {
+      double val = amplitude[i] * angles.sine(D[i], M[i], Mp[i], F[i]);
+      int power = Math.abs(M[i]);
+      if (power == 0) {
+        sum0 = sum0 + val;
+      }
+      else if (power == 1) {
+        sum1 = sum1 + val;
+      }
+      else {
+        sum2 = sum2 + val;
+      }
+    }
+    return sum0 + E * sum1 + E * E * sum2;
+  }
+
+  /** The number of terms. */
+  int size() {
+    return amplitude.length;
+  }
+
+  // PRIVATE
+
+  private final int[] D;
+  private final int[] M;
+  private final int[] Mp;
+  private final int[] F;
+  /** Degrees. */
+  private final double[] amplitude;
+
+  private PeriodicTermTable(int numTerms) {
+    D = new int[numTerms];
+    M = new int[numTerms];
+    Mp = new int[numTerms];
+    F = new int[numTerms];
+    amplitude = new double[numTerms];
+  }
+
+  private static void checkMultiple(int multiple) {
+    if (Math.abs(multiple) > MultipleAngles.MAX_MULTIPLE) {
+      throw new IllegalArgumentException("Multiple of an argument is too large: " + multiple);
+    }
+  }
+}
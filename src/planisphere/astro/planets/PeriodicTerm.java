@@ -1,7 +1,9 @@
 package planisphere.astro.planets;
 
-import static java.lang.Math.cos;
-
+/** 
+ A single periodic term, as read from a data file.
+ The terms are evaluated by {@link PeriodicTermTable}. 
+*/
 final class PeriodicTerm {
 
   /** Amplitude in radians. */
@@ -13,11 +15,6 @@ final class PeriodicTerm {
   /** Frequency in radians per millenia. */
   double C;
   
-  /** Returns radians. τ in Julian millenia. */
-  double contributionToSum(double τ) {
-    return A * cos(B + C * τ);  
-  }
-  
   @Override public String toString() {
     return "A:" + A + " B:"+B + " C:"+C;
   }
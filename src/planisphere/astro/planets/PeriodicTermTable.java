@@ -0,0 +1,203 @@
+package planisphere.astro.planets;
+
+import static java.lang.Math.cos;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ The VSOP87D periodic terms for a single planet, packed into flat arrays of primitives.
+
+ <P>The terms for all parameters are stored one after the other, in the order of the {@link Param} enumeration:
+ L0..L5, then B0..B5, then R0..R5. An array of offsets gives the start of the terms for each parameter.
+ Parameters missing from the data have no terms.
+
+ <P>Each coordinate is a polynomial in τ, whose coefficients are the sums of the periodic terms
+ for each power. The polynomial is evaluated with Horner's scheme, instead of with calls to Math.pow.
+ 
+ <P>A table can be truncated, by dropping its smallest terms. See {@link #truncated(double, double)}.
+ Immutable.
+*/
+final class PeriodicTermTable {
+
+  /** Pack the terms read from the data file. */
+  static PeriodicTermTable of(Map<Param, List<PeriodicTerm>> periodicTerms) {
+    int total = 0;
+    for(List<PeriodicTerm> terms : periodicTerms.values()) {
+      total = total + terms.size();
+    }
+    PeriodicTermTable result = new PeriodicTermTable(total);
+    int idx = 0;
+    for(Param param : Param.values()) {
+      result.start[param.ordinal()] = idx;
+      List<PeriodicTerm> terms = periodicTerms.get(param);
+      if (terms != null) { //not all of these will be in the data!
+        for(PeriodicTerm term : terms) {
+          result.A[idx] = term.A;
+          result.B[idx] = term.B;
+          result.C[idx] = term.C;
+          ++idx;
+        }
+      }
+    }
+    result.start[Param.values().length] = idx;
+    return result;
+  }
+
+  /**
+   Compute all three coordinates, and write them into the given object.
+   The L coordinate is not placed in the range 0..2pi.
+   @param τ Julian millenia since J2000
+  */
+  void lbr(double τ, LBR result) {
+    result.L = coord(Coord.L, τ);
+    result.B = coord(Coord.B, τ);
+    result.R = coord(Coord.R, τ);
+  }
+
+  /** The total number of periodic terms. */
+  int size() {
+    return A.length;
+  }
+  
+  /**
+   Return a new table, without the smallest terms.
+   
+   <P>For each coordinate, all terms whose amplitude is under a threshold are dropped.
+   The threshold is the largest one for which the estimated error of the coordinate stays under the given budget.
+   For each power of τ, the estimate uses the rule of thumb from the VSOP87 paper: dropping terms whose amplitude 
+   is at most A, from a series which keeps n terms, gives an error of about 2√n A. The estimate is never 
+   more than the sum of the amplitudes of the dropped terms, which is a strict upper bound.
+   The estimate for each power is multiplied by τ to that power, at the largest τ of interest.
+   
+   @param budget the allowed error for each coordinate: radians for L and B, and AU for R
+   @param maxτ the largest absolute value of τ of interest, in Julian millenia
+  */
+  PeriodicTermTable truncated(double budget, double maxτ) {
+    double[] threshold = new double[Coord.values().length];
+    for(Coord coord : Coord.values()) {
+      threshold[coord.ordinal()] = threshold(coord, budget, maxτ);
+    }
+    int total = 0;
+    for(int param = 0; param < Param.values().length; ++param) {
+      for(int i = start[param]; i < start[param + 1]; ++i) {
+        if (Math.abs(A[i]) >= threshold[param / NUM_POWERS]) {
+          ++total;
+        }
+      }
+    }
+    PeriodicTermTable result = new PeriodicTermTable(total);
+    int idx = 0;
+    for(int param = 0; param < Param.values().length; ++param) {
+      result.start[param] = idx;
+      for(int i = start[param]; i < start[param + 1]; ++i) {
+        if (Math.abs(A[i]) >= threshold[param / NUM_POWERS]) {
+          result.A[idx] = A[i];
+          result.B[idx] = B[i];
+          result.C[idx] = C[i];
+          ++idx;
+        }
+      }
+    }
+    result.start[Param.values().length] = idx;
+    return result;
+  }
+
+  // PRIVATE
+
+  /** The number of powers of τ for each coordinate. */
+  private static final int NUM_POWERS = Param.values().length / Coord.values().length;
+
+  /** Amplitude in radians. */
+  private final double[] A;
+  /** Phase in radians. */
+  private final double[] B;
+  /** Frequency in radians per millenia. */
+  private final double[] C;
+  /** The index of the first term for each parameter, by ordinal; the last item is the total number of terms. */
+  private final int[] start;
+
+  private PeriodicTermTable(int numTerms) {
+    A = new double[numTerms];
+    B = new double[numTerms];
+    C = new double[numTerms];
+    start = new int[Param.values().length + 1];
+  }
+
+  /** The smallest amplitude to keep, for the given coordinate. 0 if all terms are kept. */
+  private double threshold(Coord coord, double budget, double maxτ) {
+    int first = coord.ordinal() * NUM_POWERS;
+    //for each power: the absolute amplitudes, in increasing order, and their cumulative sums
+    double[][] amplitudes = new double[NUM_POWERS][];
+    double[][] sums = new double[NUM_POWERS][];
+    for(int power = 0; power < NUM_POWERS; ++power) {
+      int from = start[first + power];
+      int to = start[first + power + 1];
+      amplitudes[power] = new double[to - from];
+      for(int i = from; i < to; ++i) {
+        amplitudes[power][i - from] = Math.abs(A[i]);
+      }
+      Arrays.sort(amplitudes[power]);
+      sums[power] = new double[to - from + 1];
+      for(int i = 0; i < amplitudes[power].length; ++i) {
+        sums[power][i + 1] = sums[power][i] + amplitudes[power][i];
+      }
+    }
+    double result = 0.0;
+    for(int power = 0; power < NUM_POWERS; ++power) {
+      for(double candidate : amplitudes[power]) {
+        if (candidate > result && errorEstimate(candidate, amplitudes, sums, maxτ) <= budget) {
+          result = candidate;
+        }
+      }
+    }
+    return result;
+  }
+  
+  /** The estimated error from dropping all terms whose amplitude is less than the threshold. */
+  private static double errorEstimate(double threshold, double[][] amplitudes, double[][] sums, double maxτ) {
+    double result = 0.0;
+    for(int power = 0; power < amplitudes.length; ++power) {
+      int numDropped = numLessThan(threshold, amplitudes[power]);
+      if (numDropped > 0) {
+        int numKept = amplitudes[power].length - numDropped;
+        double sumDropped = sums[power][numDropped];
+        double largestDropped = amplitudes[power][numDropped - 1];
+        double estimate = numKept > 0 ? Math.min(sumDropped, 2 * Math.sqrt(numKept) * largestDropped) : sumDropped;
+        result = result + estimate * Math.pow(maxτ, power);
+      }
+    }
+    return result;
+  }
+  
+  /** The number of items less than the target, in an array sorted in increasing order. */
+  private static int numLessThan(double target, double[] sorted) {
+    int lo = 0;
+    int hi = sorted.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (sorted[mid] < target) {
+        lo = mid + 1;
+      }
+      else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+  
+  /** Horner's scheme, starting with the highest power of τ. */
+  private double coord(Coord coord, double τ) {
+    int first = coord.ordinal() * NUM_POWERS;
+    double result = 0.0;
+    for(int param = first + NUM_POWERS - 1; param >= first; --param) {
+      double sum = 0.0;
+      for(int i = start[param]; i < start[param + 1]; ++i) {
+        sum = sum + A[i] * cos(B[i] + C[i] * τ);
+      }
+      result = result * τ + sum;
+    }
+    return result;
+  }
+}
@@ -8,10 +8,8 @@ import static planisphere.math.Maths.in2pi;
 import static planisphere.math.Maths.radsToDegs;
 import static planisphere.math.Maths.sqr;
 
-import java.util.List;
-import java.util.Map;
-
 import planisphere.astro.moon.EclipticCoords;
+import planisphere.astro.precession.PrecessionModel;
 import planisphere.astro.star.Position;
 import planisphere.astro.time.AstroUtil;
 import planisphere.astro.time.GregorianCal;
@@ -38,17 +36,38 @@ import planisphere.util.LogUtil;
 public final class PlanetPosition {
 
   public PlanetPosition(Planet planet) {
-    PlanetPositionDataLoader loader = new PlanetPositionDataLoader();
+    this(planet, null);
+  }
+  
+  /** 
+   The obliquity of the ecliptic comes from the given model. 
+   All dates passed to {@link #position(double)} must be in the model's interval.
+   @param precession if null, then use the full precession series 
+  */
+  public PlanetPosition(Planet planet, PrecessionModel precession) {
+    this(planet, precession, SeriesPrecision.FULL);
+  }
+  
+  /** 
+   As above, but dropping the terms of the series that aren't needed for the given precision.
+   The same precision is used for the position of the Earth.
+  */
+  public PlanetPosition(Planet planet, PrecessionModel precession, SeriesPrecision seriesPrecision) {
     this.planet = planet;
-    this.periodicTerms = loader.periodicTermsForThe(planet);
+    this.periodicTerms = PlanetPositionDataLoader.periodicTermsForThe(planet, seriesPrecision);
+    this.precession = precession;
+    this.seriesPrecision = seriesPrecision;
   }
   
+  /** 
+   The heliocentric coordinates of the planet. 
+   All three coordinates are computed in a single call to the packed table of periodic terms.
+  */
   public LBR lbr(double jd) {
     LBR result = new LBR();
     double τ = AstroUtil.julianMilleniaSinceJ2000(jd);
-    result.L = L(τ);
-    result.B = B(τ);
-    result.R = R(τ);
+    periodicTerms.lbr(τ, result);
+    result.L = in2pi(result.L);
     return result;
   }
 
@@ -60,7 +79,7 @@ public final class PlanetPosition {
     
     LBR planet = lbr(jd);
     if (earthHelio == null) {
-      earthHelio = new PlanetPosition(Planet.Earth);
+      earthHelio = new PlanetPosition(Planet.Earth, null, seriesPrecision);
     }
     LBR earth = earthHelio.lbr(jd);
     double x = x_c(planet) - x_c(earth);
@@ -69,44 +88,14 @@ public final class PlanetPosition {
     double λ = atan3(y, x); //0..2pi
     double β = atan(z / (Math.sqrt(sqr(x) + sqr(y)))); // -pi/2..+pi/2
     EclipticCoords ecl = new EclipticCoords(λ, β);
-    return ecl.toRaDec(jd);
-  }
-  
-  /** Heliocentric mean ecliptic longitude L of the planet, in radians 0..2pi. */
-  private double L(double τ) {
-    return in2pi(coord(τ, Coord.L));
+    return precession == null ? ecl.toRaDec(jd) : ecl.toRaDecForObliquity(precession.obliquity(jd));
   }
   
-  /** Heliocentric mean ecliptic latitude B of the planet, in radians, -pi..+pi. */
-  private double B(double τ) {
-    return coord(τ, Coord.B);
-  }
-  
-  /** Heliocentric mean radius vector R of the planet, in AU. */
-  private double R(double τ) {
-    return coord(τ, Coord.R);
-  }
-
-  private Map<Param, List<PeriodicTerm>> periodicTerms;
+  private PeriodicTermTable periodicTerms;
   private Planet planet;
   private PlanetPosition earthHelio;
-  
-  private double coord(double τ, Coord coord) {
-    double result = 0.0;
-    for(Param param : Param.values()) { //not all of these will be in the data! 
-      //filter-in params for the given coord
-      if (param.name().startsWith(coord.name())) {
-        if (periodicTerms.get(param) != null) { //not all of these will be in the data!
-          double sum = 0.0;
-          for(PeriodicTerm pt : periodicTerms.get(param)) {
-            sum = sum + pt.contributionToSum(τ); 
-          }
-          result = result + sum * Math.pow(τ, param.power()); 
-        }
-      }
-    }
-    return result; 
-  }
+  private PrecessionModel precession;
+  private SeriesPrecision seriesPrecision;
   
   private double x_c(LBR lbr) {
     return lbr.R * cos (lbr.B) * cos (lbr.L);
@@ -1,6 +1,7 @@
 package planisphere.astro.planets;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,20 +11,57 @@ import planisphere.util.LogUtil;
 
 /** 
  Load VSOP87D data for a planet, using data files in the native directory.
+ 
+ <P>The data for each planet is read only once per process, the first time it's needed, and is then 
+ shared by all callers. The shared data is immutable. This class is thread-safe.
 */
 final class PlanetPositionDataLoader {
 
   /** 
    Return a data structure to the caller containing all periodic terms for the given planet, 
-   for all parameters defined in the {@link Param} enumeration. 
+   for all parameters defined in the {@link Param} enumeration, packed into flat arrays.
+   The file is read on the first call for the given planet; later calls return the same object. 
   */
-  Map<Param, List<PeriodicTerm>> periodicTermsForThe(Planet planet) {
-    LogUtil.log("Loading periodic terms for " + planet);
-    return readPeriodicTermData(planet);
+  static PeriodicTermTable periodicTermsForThe(Planet planet) {
+    synchronized (REGISTRY) {
+      PeriodicTermTable result = REGISTRY.get(planet);
+      if (result == null) {
+        LogUtil.log("Loading periodic terms for " + planet);
+        result = PeriodicTermTable.of(new PlanetPositionDataLoader().readPeriodicTermData(planet));
+        REGISTRY.put(planet, result);
+      }
+      return result;
+    }
+  }
+  
+  /**
+   As above, but without the terms that aren't needed for the given precision.
+   The truncated tables are also shared. The number of terms kept is logged when a table is first truncated.
+  */
+  static PeriodicTermTable periodicTermsForThe(Planet planet, SeriesPrecision precision) {
+    if (precision.isFull()) {
+      return periodicTermsForThe(planet);
+    }
+    PeriodicTermTable full = periodicTermsForThe(planet);
+    synchronized (REGISTRY) {
+      Map<SeriesPrecision, PeriodicTermTable> tables = TRUNCATED.computeIfAbsent(planet, p -> new LinkedHashMap<>());
+      PeriodicTermTable result = tables.get(precision);
+      if (result == null) {
+        result = full.truncated(precision.heliocentricBudget(), precision.maxτ());
+        LogUtil.log("Truncated series for " + planet + ": " + result.size() + " of " + full.size() + " terms, for " + precision);
+        tables.put(precision, result);
+      }
+      return result;
+    }
   }
   
   // PRIVATE 
   
+  /** Guarded by itself. */
+  private static final Map<Planet, PeriodicTermTable> REGISTRY = new EnumMap<>(Planet.class);
+  /** Guarded by REGISTRY. */
+  private static final Map<Planet, Map<SeriesPrecision, PeriodicTermTable>> TRUNCATED = new EnumMap<>(Planet.class);
+  
   private static final String FILE_NAME_START = "vsop87D-"; 
   private static final String FILE_NAME_END = ".utf8";
   private static final String PARAM_HEADER = " VSOP87";
@@ -0,0 +1,129 @@
+package planisphere.astro.planets;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import planisphere.astro.precession.PrecessionModel;
+import planisphere.astro.star.Position;
+import planisphere.astro.time.AstroUtil;
+import planisphere.astro.time.GregorianCal;
+import planisphere.astro.time.SiderealTime;
+import planisphere.config.Config;
+import planisphere.config.ConfigFromFile;
+import planisphere.math.Brent;
+import planisphere.math.Maths;
+import planisphere.util.LogUtil;
+
+/**
+ The local times at which an object crosses given altitudes, for the whole of the configured year.
+ This gives the times of rising and setting, and the start and end of twilight.
+
+ <P>The altitude of the object is first found on a grid of times, every hour of the year.
+ Each pair of neighbouring times on the grid with the altitude on opposite sides of a given altitude brackets a crossing,
+ which is then found with {@link Brent}'s method.
+ The grid is shared by all of the altitudes, so asking for several altitudes at once costs little more than asking for one.
+ Two crossings less than an hour apart are missed. That happens only at high latitudes, when the object barely crosses the altitude.
+
+ <P>The altitudes used for rising and setting include the refraction at the horizon.
+ The positions are geocentric. For the Moon, the altitude {@link #MOON} includes the mean effect of parallax.
+*/
+public final class RiseSet {
+
+  /** Upper limb of the Sun on the horizon, with refraction - {@value} degrees. */
+  public static final double SUN = -0.8333;
+
+  /** Upper limb of the Moon on the horizon, with refraction and the mean parallax - {@value} degrees. */
+  public static final double MOON = 0.125;
+
+  /** A planet or star on the horizon, with refraction - {@value} degrees. */
+  public static final double PLANET = -0.5667;
+
+  /** Altitude of the Sun at the start and end of civil twilight - {@value} degrees. */
+  public static final double CIVIL_TWILIGHT = -6.0;
+
+  /** Altitude of the Sun at the start and end of nautical twilight - {@value} degrees. */
+  public static final double NAUTICAL_TWILIGHT = -12.0;
+
+  /** Altitude of the Sun at the start and end of astronomical twilight - {@value} degrees. */
+  public static final double ASTRONOMICAL_TWILIGHT = -18.0;
+
+  public RiseSet(Config config) {
+    this.config = config;
+  }
+
+  /**
+   All crossings of the given altitudes by the object, in the configured year, ordered by time.
+
+   @param jdToPosition the function that returns the position of the object.
+   @param altitudes in degrees.
+  */
+  public List<RiseSetEvent> eventsForTheYear(Function<Double, Position> jdToPosition, double... altitudes){
+    LocalDate jan1 = LocalDate.of(config.year(), 1, 1);
+    double jdStart = GregorianCal.jdForLocal(config.year(), 1, 1, 0, 0, 0, 0, config.hoursOffsetFromUT(), config.minutesOffsetFromUT());
+    int numSteps = (int)Math.round(GregorianCal.numDaysIn(config.year()) * HOURS_PER_DAY / STEP);
+    double[] sinAltitudes = new double[numSteps + 1];
+    for(int i = 0; i <= numSteps; ++i) {
+      sinAltitudes[i] = sinAltitude(i * STEP, jdStart, jdToPosition);
+    }
+    List<RiseSetEvent> result = new ArrayList<>();
+    for(double altitude : altitudes) {
+      double target = sin(Maths.degToRads(altitude));
+      for(int i = 0; i < numSteps; ++i) {
+        double fa = sinAltitudes[i] - target;
+        double fb = sinAltitudes[i + 1] - target;
+        if ((fa < 0) != (fb < 0)) {
+          double hours = Brent.root(t -> sinAltitude(t, jdStart, jdToPosition) - target, i * STEP, (i + 1) * STEP, fa, fb, TOLERANCE);
+          result.add(new RiseSetEvent(localTime(jan1, hours), altitude, fb > fa));
+        }
+      }
+    }
+    result.sort(Comparator.comparing(RiseSetEvent::when));
+    return result;
+  }
+
+  /** Informal test. Sunrise, sunset, and nautical twilight for the configured location and year. */
+  public static void main(String... args) {
+    Config config = new ConfigFromFile().init();
+    RiseSet riseSet = new RiseSet(config);
+    SolarPosition sun = new SolarPosition(SeriesPrecision.from(config));
+    PrecessionModel precession = PrecessionModel.forYear(config.year());
+    Function<Double, Position> jdToPosition = jd -> sun.apparentPosition(jd, precession.obliquity(jd));
+    for(RiseSetEvent event : riseSet.eventsForTheYear(jdToPosition, SUN, NAUTICAL_TWILIGHT)) {
+      LogUtil.log(event);
+    }
+  }
+
+  // PRIVATE
+
+  private Config config;
+
+  private static final double HOURS_PER_DAY = 24.0;
+
+  /** The spacing of the grid - {@value} hours. */
+  private static final double STEP = 1.0;
+
+  /** A second of time, in hours. */
+  private static final double TOLERANCE = 1.0 / 3600.0;
+
+  /** The sine of the altitude, at the given number of hours after local midnight on January 1. */
+  private double sinAltitude(double hours, double jdStart, Function<Double, Position> jdToPosition) {
+    double jd = jdStart + hours / HOURS_PER_DAY;
+    Position pos = jdToPosition.apply(jd);
+    double hourAngle = SiderealTime.siderealTime(jd, config.longitude()) - pos.α;
+    double φ = config.latitude();
+    return sin(φ) * sin(pos.δ) + cos(φ) * cos(pos.δ) * cos(hourAngle);
+  }
+
+  /** The given number of hours after local midnight on the given date, rounded to the nearest minute. */
+  private LocalDateTime localTime(LocalDate date, double hours) {
+    long minutes = Math.round(hours * AstroUtil.MINUTES_PER_HOUR);
+    return date.atStartOfDay().plusMinutes(minutes);
+  }
+}
@@ -0,0 +1,35 @@
+package planisphere.astro.planets;
+
+import java.time.LocalDateTime;
+
+/**
+ The moment an object crosses a given altitude, when rising or setting.
+ Immutable.
+*/
+public final class RiseSetEvent {
+
+  public RiseSetEvent(LocalDateTime when, double altitude, boolean rising) {
+    this.when = when;
+    this.altitude = altitude;
+    this.rising = rising;
+  }
+
+  /** The date and time, according to the observer's time zone, rounded to the nearest minute. */
+  public LocalDateTime when() { return when; }
+
+  /** The altitude that is crossed, in degrees. */
+  public double altitude() { return altitude; }
+
+  /** True if the object is rising, false if it's setting. */
+  public boolean isRising() { return rising; }
+
+  @Override public String toString() {
+    return (rising ? "Rises" : "Sets") + " through " + altitude + "° at " + when;
+  }
+
+  // PRIVATE
+
+  private final LocalDateTime when;
+  private final double altitude;
+  private final boolean rising;
+}
@@ -0,0 +1,124 @@
+package planisphere.astro.planets;
+
+import java.util.Objects;
+
+import planisphere.astro.time.AstroUtil;
+import planisphere.astro.time.GregorianCal;
+import planisphere.config.Config;
+import planisphere.math.Maths;
+
+/**
+ The precision needed from the VSOP87D series, over a given span of dates.
+
+ <P>The full series is accurate to about 1 arcsecond over thousands of years. A planisphere needs much less than that,
+ for a single year. When a precision is given, the smallest terms of the series are dropped, as long as the estimated
+ error of the geocentric position stays under the given number of arcseconds, for all dates in the span.
+ Dropping terms makes the series much faster to evaluate.
+
+ <P>Dates outside the span can still be used, but the error estimate no longer applies to them.
+ Immutable.
+*/
+public final class SeriesPrecision {
+
+  /** No terms are dropped. */
+  public static final SeriesPrecision FULL = new SeriesPrecision(0.0, AstroUtil.J2000, AstroUtil.J2000);
+
+  /**
+   The precision given by {@link Config#ephemerisPrecision()}, for the year of the chart.
+   Returns {@link #FULL} if the setting is 0.
+  */
+  public static SeriesPrecision from(Config config) {
+    return forYear(config.year(), config.ephemerisPrecision());
+  }
+
+  /**
+   The given precision, over the given year, plus a margin of {@value #MARGIN_DAYS} days on either side.
+   @param arcseconds 0 for the full series
+  */
+  public static SeriesPrecision forYear(int year, double arcseconds) {
+    double start = GregorianCal.jd(year, 1, 1.0) - MARGIN_DAYS;
+    double end = GregorianCal.jd(year + 1, 1, 1.0) + MARGIN_DAYS;
+    return of(arcseconds, start, end);
+  }
+
+  /**
+   The given precision, over any span of dates.
+   @param arcseconds 0 for the full series
+  */
+  public static SeriesPrecision of(double arcseconds, double jdStart, double jdEnd) {
+    if (arcseconds < 0) {
+      throw new IllegalArgumentException("Precision can't be negative: " + arcseconds);
+    }
+    if (jdEnd < jdStart) {
+      throw new IllegalArgumentException("The end of the span can't come before the start: " + jdStart + " " + jdEnd);
+    }
+    return arcseconds == 0 ? FULL : new SeriesPrecision(arcseconds, jdStart, jdEnd);
+  }
+
+  /** True if no terms are dropped. */
+  public boolean isFull() {
+    return arcseconds == 0;
+  }
+
+  /** The maximum error of the geocentric position, in arcseconds. 0 for the full series. */
+  public double arcseconds() { return arcseconds; }
+
+  /** Start of the span. */
+  public double start() { return jdStart; }
+
+  /** End of the span. */
+  public double end() { return jdEnd; }
+
+  @Override public boolean equals(Object object) {
+    boolean result = false;
+    if (object instanceof SeriesPrecision) {
+      SeriesPrecision that = (SeriesPrecision)object;
+      result = Double.compare(this.arcseconds, that.arcseconds) == 0 &&
+        Double.compare(this.jdStart, that.jdStart) == 0 && Double.compare(this.jdEnd, that.jdEnd) == 0;
+    }
+    return result;
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash(arcseconds, jdStart, jdEnd);
+  }
+
+  @Override public String toString() {
+    return isFull() ? "full series" : arcseconds + " arcseconds from JD " + jdStart + " to " + jdEnd;
+  }
+
+  /**
+   The allowed error in each heliocentric coordinate: radians for L and B, and AU for R.
+
+   <P>An error e in a heliocentric coordinate moves the planet (or the Earth) by about e*R.
+   Seen from the Earth, that's an angle of about e*R/Δ, where Δ is the distance of the planet from the Earth.
+   Over all of the planets (including the Earth itself, for all of the others), R/Δ and 1/Δ stay under about 4,
+   for Venus and Mars at their closest approach. So the budget for each coordinate is a quarter of the total.
+  */
+  double heliocentricBudget() {
+    return Maths.arcsecToRads(arcseconds) / GEOCENTRIC_FACTOR;
+  }
+
+  /** The largest absolute value of τ in the span, in Julian millenia. */
+  double maxτ() {
+    return Math.max(
+      Math.abs(AstroUtil.julianMilleniaSinceJ2000(jdStart)),
+      Math.abs(AstroUtil.julianMilleniaSinceJ2000(jdEnd))
+    );
+  }
+
+  // PRIVATE
+
+  private static final double MARGIN_DAYS = 10.0;
+  private static final double GEOCENTRIC_FACTOR = 4.0;
+
+  private final double arcseconds;
+  private final double jdStart;
+  private final double jdEnd;
+
+  private SeriesPrecision(double arcseconds, double jdStart, double jdEnd) {
+    this.arcseconds = arcseconds;
+    this.jdStart = jdStart;
+    this.jdEnd = jdEnd;
+  }
+}
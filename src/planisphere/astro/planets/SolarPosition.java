@@ -35,6 +35,16 @@ import planisphere.util.LogUtil;
 */
 public final class SolarPosition {
   
+  /** Use the full series. */
+  public SolarPosition() {
+    this(SeriesPrecision.FULL);
+  }
+  
+  /** Drop the terms of the series that aren't needed for the given precision. */
+  public SolarPosition(SeriesPrecision seriesPrecision) {
+    this.seriesPrecision = seriesPrecision;
+  }
+  
   /** Return the apparent RA and DEC (rads) of the Sun for the given moment and obliquity. */
   public Position apparentPosition(double jd, double ε) {
     double λ = apparentλ(jd);
@@ -58,11 +68,12 @@ public final class SolarPosition {
   }
   
   private PlanetPosition earth;
+  private SeriesPrecision seriesPrecision;
 
   /** Mean longitude L of the Earth, in radians. Heliocentric. The core calculation. */
   private double meanLEarth(double jd) {
     if (earth == null) {
-      earth = new PlanetPosition(Planet.Earth);
+      earth = new PlanetPosition(Planet.Earth, null, seriesPrecision);
     }
     return earth.lbr(jd).L;
   }
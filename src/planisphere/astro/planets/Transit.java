@@ -33,6 +33,11 @@ import planisphere.util.LogUtil;
   
  <P>The Moon's orbit is drawn for July 1 of the given year. There is considerable 
  motion of the orbit during the year, with the ascending node regressing by about 19 degrees per year. 
+ 
+ <P>The time of transit is found with the secant method, as the root of the hour angle.
+ When finding transits for a series of dates, the search starts from the time predicted by the previous transit.
+ For every day of the year, the transits are found in a single pass, without searching each day separately.
+ Usually, only 2 or 3 positions of the object are needed for each transit.
 */
 public final class Transit {
   
@@ -49,22 +54,36 @@ public final class Transit {
    If no transit happens for that day, then return null.
   */
   public Optional<LocalDateTime> transit(LocalDate date, Function<Double, Position> jdToPosition){
-    Optional<LocalDateTime> result = Optional.empty();
-    List<HourAngle> hourlyHAs = hourAnglesOnTheGiven(date, jdToPosition);
-    Optional<Bracket> transitHour = hourInWhichTheTransitOccurs(hourlyHAs);
-    if (transitHour.isPresent()) {
-      result = Optional.of(linearInterpolationWithinThe(transitHour.get()));
-    }
-    return result;
+    return asLocalTime(date, transitNear(date, NOON, jdToPosition));
   }
   
-  /** Transits for every day of the configured year. */
+  /** 
+   Transits for every day of the configured year.
+   
+   <P>The whole year is treated as a single span of time, starting at local midnight on January 1.
+   Each transit is found only once, starting the search one period after the previous transit.
+   Each transit is then assigned to the date on which it falls. A date with no transit is empty.
+   If a date has two transits, only the first is kept.
+  */
   public List<Optional<LocalDateTime>> transitsForEveryDayOfTheYear(Function<Double, Position> jdToPosition){
+    int numDays = GregorianCal.numDaysIn(config.year());
     List<Optional<LocalDateTime>> result = new ArrayList<>();
+    for(int i = 0; i < numDays; ++i) {
+      result.add(Optional.empty());
+    }
     LocalDate jan1 = LocalDate.of(config.year(), 1, 1);
-    for(int i = 0; i < GregorianCal.numDaysIn(config.year()); ++i) {
-      LocalDate local = jan1.plusDays(i);
-      result.add(transit(local, jdToPosition));
+    double jdStart = jdAtMidnight(jan1);
+    Root root = transitNear(jan1, NOON, jdToPosition);
+    while (root.hours < numDays * HOURS_PER_DAY) {
+      int day = (int)Math.floor(root.hours / HOURS_PER_DAY);
+      if (day >= 0 && !result.get(day).isPresent()) {
+        result.set(day, Optional.of(localTime(jan1, root.hours)));
+      }
+      Root next = rootNear(root.hours + root.period, jdStart, jdToPosition);
+      if (next.hours < root.hours + MARGIN) {
+        throw new RuntimeException("Search for the next transit went backwards, from hour " + root.hours + " to " + next.hours);
+      }
+      root = next;
     }
     return result;
   }
@@ -73,89 +92,130 @@ public final class Transit {
   public List<Optional<LocalDateTime>> transitsForMidMonth(Function<Double, Position> jdToPosition){
     List<Optional<LocalDateTime>> result = new ArrayList<>();
     LocalDate jan15 = LocalDate.of(config.year(), 1, 15);
+    double guess = NOON;
     for(int i = 0; i < 12; ++i) {
       LocalDate local = jan15.plusMonths(i);
-      result.add(transit(local, jdToPosition));
+      Root root = transitNear(local, guess, jdToPosition);
+      result.add(asLocalTime(local, root));
+      //a month later, the time of day changes by a couple of hours at most, for the planets
+      guess = root.hours - HOURS_PER_DAY * Math.floor(root.hours / HOURS_PER_DAY);
     }
     return result;
   }
 
+  // PRIVATE
+  
   private Config config;
 
-  /** The hour angle of the Moon at a given local date-time. */
-  private static final class HourAngle {
-    HourAngle(LocalDateTime local, Double HA){
-      this.time = local;
-      this.HA = HA; //rads
-    }
-    LocalDateTime time;
-    Double HA;
-  }
+  private static final double HOURS_PER_DAY = 24.0;
+  private static final double NOON = 12.0;
+  
+  /** The hour angle changes by about 2pi in a day, for all objects. */
+  private static final double NOMINAL_RATE = Maths.TWO_PI / HOURS_PER_DAY; // rads per hour
+  
+  /** Stop when the correction is less than a second of time. */
+  private static final double TOLERANCE = 1.0 / 3600.0; // hours
   
-  /** The data that comes before and after the transit. */
-  private static final class Bracket {
-    Bracket(HourAngle start, HourAngle end){
-      this.start = start;
-      this.end = end;
+  private static final int MAX_ITERATIONS = 10;
+  
+  /** The estimated period is much better than this. */
+  private static final double MARGIN = 1.0; // hours
+  
+  /** 
+   A moment at which the hour angle of the object is 0, in hours after midnight (local time) on a given date.
+   The hours can be negative, or more than 24.
+  */
+  private static final class Root {
+    Root(double hours, double period){
+      this.hours = hours;
+      this.period = period;
     }
-    HourAngle start;
-    HourAngle end;
+    double hours;
+    /** The time between successive transits, in hours, found from the rate of change of the hour angle near the root. */
+    double period;
   }
-
+  
   /**
-   The hour angle of the object, for every hour of the day. 
-   Ordered by time, 0h to 24h. 
+   Find the transit on the given date, starting the search at the given time. 
+   If there's more than one transit on the date, return the first one.
+   If there's no transit on the date, the returned root falls outside the date.
   */
-  private List<HourAngle> hourAnglesOnTheGiven(LocalDate localDate,  Function<Double, Position> jdToPosition){
-    List<HourAngle> result = new ArrayList<>();
-    LocalDateTime midnight = LocalDateTime.of(config.year(), localDate.getMonthValue(), localDate.getDayOfMonth(), 0, 0);
-    for(int hour = 0; hour <= 24; ++hour) { // include 24h, in case the transit happens in the final hour
-      LocalDateTime local = midnight.plusHours(hour);
-      /*
-       Be careful with the exact meaning of the date and time. 
-       Need to translate from the observer's time zone into UT.
-      */
-      SiderealTime sidereal = new SiderealTime(config);
-      double lst = sidereal.siderealTime(
-        local.getYear(), local.getMonthValue(), local.getDayOfMonth(), 
-        local.getHour(), local.getMinute(), local.getSecond(), 
-        local.getNano(), config.hoursOffsetFromUT(), config.minutesOffsetFromUT(),
-        config.longitude()
-      ); // 0..2pi
-      double jd = GregorianCal.jdForLocal(
-        local.getYear(), local.getMonthValue(), local.getDayOfMonth(), 
-        local.getHour(), local.getMinute(), local.getSecond(), 
-        local.getNano(), config.hoursOffsetFromUT(), config.minutesOffsetFromUT()
-      );
-      Position pos = jdToPosition.apply(jd);
-      double ha = Maths.in2pi(lst - pos.α); 
-      result.add(new HourAngle(local, ha));
+  private Root transitNear(LocalDate date, double guessHours, Function<Double, Position> jdToPosition) {
+    double jdMidnight = jdAtMidnight(date);
+    Root result = rootNear(guessHours, jdMidnight, jdToPosition);
+    if (result.hours < 0) {
+      //that one was on the previous day; try the next one
+      result = rootNear(result.hours + result.period, jdMidnight, jdToPosition);
+    }
+    else if (result.hours - result.period > -MARGIN) {
+      //there may be an earlier one on the same date
+      Root earlier = rootNear(result.hours - result.period, jdMidnight, jdToPosition);
+      if (earlier.hours >= 0 && earlier.hours < result.hours) {
+        result = earlier;
+      }
     }
     return result;
   }
-
+  
   /** 
-   Return the pair which bracket the time of transit.
-   WARNING: some days will have no transit: the return value may be null. 
+   The secant method, applied to the hour angle in the range -pi..pi.
+   The first step uses the nominal rate of change of the hour angle. 
+   Usually converges to better than a second of time with 2 or 3 positions of the object.  
   */
-  private Optional<Bracket> hourInWhichTheTransitOccurs(List<HourAngle> hourAngles) {
-    Bracket result = null;
-    //examine pair-wise; see if the hour angle DECREASES at any point
-    for(int i = 0; i < hourAngles.size() - 1; ++i) {
-      HourAngle start = hourAngles.get(i);
-      HourAngle end = hourAngles.get(i+1); //pair-wise (the last HA never starts a pair)
-      if (start.HA > end.HA) {
-        result = new Bracket(start, end);
+  private Root rootNear(double guessHours, double jdMidnight, Function<Double, Position> jdToPosition) {
+    double t0 = guessHours;
+    double f0 = hourAngle(t0, jdMidnight, jdToPosition);
+    double t1 = t0 - f0 / NOMINAL_RATE;
+    double slope = NOMINAL_RATE;
+    for(int i = 0; i < MAX_ITERATIONS; ++i) {
+      double f1 = hourAngle(t1, jdMidnight, jdToPosition);
+      if (f1 != f0) {
+        slope = (f1 - f0) / (t1 - t0);
+      }
+      double t2 = t1 - f1 / slope;
+      t0 = t1;
+      f0 = f1;
+      t1 = t2;
+      if (Math.abs(t1 - t0) < TOLERANCE) {
         break;
       }
     }
-    return Optional.ofNullable(result);
+    return new Root(t1, Maths.TWO_PI / slope);
+  }
+  
+  /** The hour angle of the object, in the range -pi..pi. The time is in hours after local midnight. */
+  private double hourAngle(double hours, double jdMidnight, Function<Double, Position> jdToPosition) {
+    double jd = jdMidnight + hours / HOURS_PER_DAY;
+    double lst = SiderealTime.siderealTime(jd, config.longitude());
+    Position pos = jdToPosition.apply(jd);
+    double result = Maths.in2pi(lst - pos.α);
+    if (result > Math.PI) {
+      result = result - Maths.TWO_PI;
+    }
+    return result;
+  }
+
+  /** Empty if the root is not on the given date. */
+  private Optional<LocalDateTime> asLocalTime(LocalDate date, Root root) {
+    Optional<LocalDateTime> result = Optional.empty();
+    if (root.hours >= 0 && root.hours <= HOURS_PER_DAY) {
+      result = Optional.of(localTime(date, root.hours));
+    }
+    return result;
+  }
+  
+  /** The given number of hours after local midnight on the given date, rounded to the nearest minute. */
+  private LocalDateTime localTime(LocalDate date, double hours) {
+    long minutes = Math.round(hours * AstroUtil.MINUTES_PER_HOUR);
+    return date.atStartOfDay().plusMinutes(minutes);
   }
   
-  private LocalDateTime linearInterpolationWithinThe(Bracket bracket) {
-    double p = (Maths.TWO_PI - bracket.start.HA) / (Maths.TWO_PI + bracket.end.HA - bracket.start.HA); //fraction of an hour
-    long minutes = Math.round(p * AstroUtil.MINUTES_PER_HOUR);
-    return bracket.start.time.plusMinutes(minutes);
+  /** Local midnight at the start of the given date, as a Julian Date (UT). */
+  private double jdAtMidnight(LocalDate date) {
+    return GregorianCal.jdForLocal(
+      date.getYear(), date.getMonthValue(), date.getDayOfMonth(), 
+      0, 0, 0, 0, config.hoursOffsetFromUT(), config.minutesOffsetFromUT()
+    );
   }
   
   public static void main(String... args) {
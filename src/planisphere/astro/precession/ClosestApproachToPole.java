@@ -3,16 +3,24 @@ package planisphere.astro.precession;
 import static planisphere.util.LogUtil.log;
 
 import java.io.IOException;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import planisphere.astro.star.Position;
-import planisphere.astro.star.ProperMotion;
-import planisphere.astro.star.Star;
+import planisphere.astro.star.SpaceMotion;
 import planisphere.astro.star.StarCatalog;
+import planisphere.astro.star.StarTable;
 import planisphere.astro.time.AstroUtil;
 import planisphere.astro.time.GregorianCal;
 import planisphere.config.Config;
 import planisphere.config.ConfigFromFile;
+import planisphere.math.GoldenSection;
 import planisphere.math.Maths;
 
 /** 
@@ -73,35 +81,49 @@ The results for the interval of -10,000..+10000, and the same stars as above:
 σ Pup -14090 +0°23'6.263''
 </pre>
 
-<P>This implementation only cycles through each year in the given range, as of Jan 1. 
-A more accurate method would then interpolate/search for a more precise date. 
+<P>The search has two stages. First, a coarse scan of the whole range, every {@value #COARSE_STEP} years, as of Jan 1.
+The precession matrices for the coarse scan depend only on the date, so they're computed once, and shared by all stars.
+Second, a golden-section search in the interval of one coarse step on either side of the best year found by the scan. 
+That gives a fractional year (to within {@value #TOLERANCE} years), not just a whole year.
+The refinement assumes that there's only one maximum of the declination within a coarse step of the best year in the scan.   
+
+<P>The space motion of each star is computed only once (see {@link SpaceMotion}), so that 
+proper motion for each date is only a multiply-add, followed by the conversion to (ra, dec). 
+
+<P>The catalog-wide mode ({@link #rankAll(double, int)}) ranks every star brighter than a given magnitude. 
+The stars are processed in parallel. To run it from the command line, for stars of magnitude 3.5 or brighter: 
+<pre>ClosestApproachToPole all 3.5</pre>
 */
 public final class ClosestApproachToPole {
 
   public static final int MAX_YEAR = 15000;
+  
+  /** The largest range supported by the precession algorithm, in years either side of the year 0. */
+  public static final int MAX_YEAR_LIMIT = 200000;
+  
+  /** Years between the dates used by the coarse scan - {@value}. */
+  public static final int COARSE_STEP = 20;
+  
+  /** Years. The precision of the year returned by the refinement - {@value}. */
+  public static final double TOLERANCE = 0.01;
 
-  /** Run the script. */
+  /** 
+   Run the script.
+   With no arguments, report on a fixed list of stars.
+   With the arguments 'all' and a limiting magnitude, rank all stars in the catalog over the largest allowed range of years.
+  */
   public static void main(String... args) throws IOException {
-    
-    String[] STAR_NAMES_N = {"α Lyr", "α Cyg", "α UMi", "β UMi", "α Cep", "λ Cep", "α Dra", "τ Her"};
-    String[] STAR_NAMES_S = {"α Dor", "γ Dor", "α Eri", "γ Cha", "α Car", "ω Car", "δ Vel", "γ2 Vel", "σ Pup"};
-    
-    log("Finding years of closest approach for stars near the pole, in the range -" + MAX_YEAR + "..+" + MAX_YEAR);
-    
-    ClosestApproachToPole approach = new ClosestApproachToPole(MAX_YEAR);
-    //choose _N or _S here:
-    for (String starName : STAR_NAMES_N) {
-      Closest closest = approach.findTheClosestApproachToThePole(starName);
-      if (closest != null) {
-        log(starName + " " + closest.year + " " + closest.separation() + " " + closest.properName);
-      }
+    if (args.length > 0 && ALL.equalsIgnoreCase(args[0])) {
+      double limitingMag = args.length > 1 ? Double.valueOf(args[1]) : DEFAULT_LIMITING_MAG;
+      reportAll(limitingMag);
+    }
+    else {
+      reportNamedStars();
     }
-    log("Star / year / separation.");
-    log("Done.");
   }
   
   public ClosestApproachToPole(int maxYear) throws IOException {
-    if (maxYear > 200000) {
+    if (maxYear > MAX_YEAR_LIMIT) {
       throw new IllegalArgumentException("Max year cannot exceed 200,000.");
     }
     this.maxYear = maxYear;
@@ -109,14 +131,16 @@ public final class ClosestApproachToPole {
     this.starCatalog = new StarCatalog(config);
     Double NO_PRECESSION = null;
     starCatalog.generateIntermediateStarCatalog(NO_PRECESSION);
+    this.spaceMotion = SpaceMotion.of(starCatalog.table());
+    coarseScanDates();
   }
   
-  /** Scan for the year of closest approach, in the given range. */
+  /** Search for the year of closest approach, in the given range. */
   public Closest findTheClosestApproachToThePole(String name) {
     Closest result = null;
-    Optional<Star> star = starCatalog.findByName(name);
-    if (star.isPresent()) {
-      result = findTheClosestApproachToThePole(star.get());
+    OptionalInt row = starCatalog.index().rowOfName(name);
+    if (row.isPresent()) {
+      result = findTheClosestApproachToThePole(row.getAsInt());
     }
     else {
       log("Can't find the star named '" + name + "'.");
@@ -124,42 +148,176 @@ public final class ClosestApproachToPole {
     return result;
   }
   
+  /**
+   Find the closest approach to the pole of every star having the given magnitude or brighter.
+   @param limitingMag stars fainter than this are ignored
+   @param parallelism the number of threads; 0 for the number of available processors 
+   @return in order of increasing separation from the pole 
+  */
+  public List<Closest> rankAll(double limitingMag, int parallelism) {
+    StarTable table = starCatalog.table();
+    int numThreads = parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<Closest>> futures = new ArrayList<>();
+      //the rows are in order of increasing magnitude
+      for(int row = 0; row < table.size() && table.mag(row) <= limitingMag; ++row) {
+        int thisRow = row;
+        futures.add(executor.submit(() -> findTheClosestApproachToThePole(thisRow)));
+      }
+      List<Closest> result = new ArrayList<>();
+      for(Future<Closest> future : futures) {
+        result.add(future.get());
+      }
+      result.sort(Comparator.comparingDouble(Closest::separationRads));
+      return result;
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while ranking the stars.", ex);
+    }
+    catch (ExecutionException ex) {
+      throw new RuntimeException("Can't rank the stars.", ex.getCause());
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+  
+  /** The closest approach of a star to the pole. Immutable. */
+  public static final class Closest {
+    /** Bayer or Flamsteed designation; possibly empty. */
+    public String name() { return name; }
+    /** Possibly empty. */
+    public String properName() { return properName; }
+    /** Identifier in the star catalog. */
+    public int index() { return index; }
+    /** Fractional year, in the Gregorian calendar. Year 0 is 1 BC. */
+    public double year() { return year; }
+    /** The smallest angular distance from the (north or south) equatorial pole, in radians. */
+    public double separationRads() { return Maths.HALF_PI - declination; }
+    /** The smallest angular distance from the pole, as text. */
+    public String separation() {
+      return AstroUtil.radsToDegreeString(separationRads());
+    }
+    private Closest(StarTable table, int row, double year, double declination) {
+      this.name = table.name(row);
+      this.properName = table.properName(row);
+      this.index = table.index(row);
+      this.year = year;
+      this.declination = declination;
+    }
+    private final String name;
+    private final String properName;
+    private final int index;
+    private final double year;
+    private final double declination; //absolute value!
+  }
+  
+  // PRIVATE
+  
+  private static final String ALL = "all";
+  private static final double DEFAULT_LIMITING_MAG = 3.5;
+  private static final int NUM_REPORTED = 50;
+  
   private int maxYear;
   private StarCatalog starCatalog;
+  private SpaceMotion spaceMotion;
+  /** For the coarse scan, shared by all stars. */
+  private double[] coarseYears;
+  private double[] coarseJds;
+  private PrecessionFrame[] coarseFrames;
+  
+  private static void reportNamedStars() throws IOException {
+    String[] STAR_NAMES_N = {"α Lyr", "α Cyg", "α UMi", "β UMi", "α Cep", "λ Cep", "α Dra", "τ Her"};
+    String[] STAR_NAMES_S = {"α Dor", "γ Dor", "α Eri", "γ Cha", "α Car", "ω Car", "δ Vel", "γ2 Vel", "σ Pup"};
+    
+    log("Finding years of closest approach for stars near the pole, in the range -" + MAX_YEAR + "..+" + MAX_YEAR);
+    
+    ClosestApproachToPole approach = new ClosestApproachToPole(MAX_YEAR);
+    //choose _N or _S here:
+    for (String starName : STAR_NAMES_N) {
+      Closest closest = approach.findTheClosestApproachToThePole(starName);
+      if (closest != null) {
+        log(starName + " " + yearText(closest) + " " + closest.separation() + " " + closest.properName);
+      }
+    }
+    log("Star / year / separation.");
+    log("Done.");
+  }
   
-  private Closest findTheClosestApproachToThePole(Star star) {
-    Closest result = new Closest();
+  private static void reportAll(double limitingMag) throws IOException {
+    log("Ranking all stars of magnitude " + limitingMag + " or brighter by their closest approach to the pole, in the range -" + MAX_YEAR_LIMIT + "..+" + MAX_YEAR_LIMIT);
+    ClosestApproachToPole approach = new ClosestApproachToPole(MAX_YEAR_LIMIT);
+    long start = System.currentTimeMillis();
+    List<Closest> ranking = approach.rankAll(limitingMag, 0);
+    log("Number of stars: " + ranking.size() + ". Time: " + (System.currentTimeMillis() - start) + "ms. Closest " + NUM_REPORTED + ":");
+    for(Closest closest : ranking.subList(0, Math.min(NUM_REPORTED, ranking.size()))) {
+      log(closest.name + " (" + closest.index + ") " + yearText(closest) + " " + closest.separation() + " " + closest.properName);
+    }
+    log("Star / year / separation.");
+    log("Done.");
+  }
+  
+  private static String yearText(Closest closest) {
+    return String.format("%.2f", closest.year);
+  }
+  
+  private void coarseScanDates() {
+    int numSteps = 2 * maxYear / COARSE_STEP + 1;
+    coarseYears = new double[numSteps];
+    coarseJds = new double[numSteps];
+    coarseFrames = new PrecessionFrame[numSteps];
     LongTermPrecession precession = new LongTermPrecession();
-    double dec = 0.0;
-    int year = 0;
-    for (int y = -maxYear; y <= maxYear; y = y + 1) {
-      Double jd = GregorianCal.jd(y, 1, 1.0);
-      
-      //always apply proper motion before precession
-      ProperMotion pm = new ProperMotion(ProperMotion.J1991_25, jd);
-      //the proper motion code changes the state of the star in place; 
-      //we need to preserve the state of the incoming star object
-      Star copyWithPM = star.copy();
-      pm.applyTo(copyWithPM);
-      
-      Position pos = precession.apply(copyWithPM.position(), jd);
-      if (Math.abs(pos.δ) > dec) {
-        dec = Math.abs(pos.δ);
-        year = y;
+    for(int i = 0; i < numSteps; ++i) {
+      coarseYears[i] = Math.min(-maxYear + i * COARSE_STEP, maxYear);
+      coarseJds[i] = jd(coarseYears[i]);
+      coarseFrames[i] = precession.frame(coarseJds[i]);
+    }
+  }
+  
+  /** The row is in the catalog's table. Thread-safe. */
+  private Closest findTheClosestApproachToThePole(int row) {
+    //coarse scan
+    Position withPM = new Position();
+    double dec = -1.0;
+    int best = 0;
+    for (int i = 0; i < coarseJds.length; ++i) {
+      double coarseDec = absDeclination(row, coarseJds[i], coarseFrames[i], withPM);
+      if (coarseDec > dec) {
+        dec = coarseDec;
+        best = i;
       }
     }
-    result.declination = dec;
-    result.year = year;
-    result.properName = star.PROPER_NAME;
-    return result;
+    //refinement
+    double year = coarseYears[best];
+    double lo = Math.max(-maxYear, year - COARSE_STEP);
+    double hi = Math.min(maxYear, year + COARSE_STEP);
+    LongTermPrecession precession = new LongTermPrecession();
+    Position scratch = new Position();
+    double refinedYear = GoldenSection.maximum(y -> absDeclination(row, jd(y), precession.frame(jd(y)), scratch), lo, hi, TOLERANCE);
+    double refinedDec = absDeclination(row, jd(refinedYear), precession.frame(jd(refinedYear)), scratch);
+    if (refinedDec > dec) {
+      dec = refinedDec;
+      year = refinedYear;
+    }
+    return new Closest(starCatalog.table(), row, year, dec);
+  }
+  
+  /** Proper motion, then precession. */
+  private double absDeclination(int row, double jd, PrecessionFrame frame, Position withPM) {
+    spaceMotion.positionAt(row, jd, withPM);
+    return Math.abs(frame.apply(withPM).δ);
   }
   
-  private static final class Closest {
-    String properName;
-    int year;
-    double declination; //absolute value!
-    String separation() {
-      return AstroUtil.radsToDegreeString(Maths.HALF_PI - declination);
+  /** Jan 1.0 for whole years, and interpolated in between. */
+  private static double jd(double year) {
+    int wholeYear = (int)Math.floor(year);
+    double jan1 = GregorianCal.jd(wholeYear, 1, 1.0);
+    double result = jan1;
+    if (year > wholeYear) {
+      result = jan1 + (year - wholeYear) * (GregorianCal.jd(wholeYear + 1, 1, 1.0) - jan1);
     }
+    return result;
   }
 }
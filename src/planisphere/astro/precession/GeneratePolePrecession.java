@@ -12,7 +12,7 @@ import com.itextpdf.text.DocumentException;
 import planisphere.GeneratePdfABC;
 import planisphere.astro.constellation.ConstellationLines;
 import planisphere.astro.star.Star;
-import planisphere.astro.star.StarCatalog;
+import planisphere.astro.star.StarCatalogCache;
 import planisphere.config.Config;
 import planisphere.draw.ChartUtil;
 import planisphere.draw.Projection;
@@ -34,10 +34,9 @@ public final class GeneratePolePrecession extends GeneratePdfABC {
   protected void addContentToTheDocument(Graphics2D g) throws DocumentException, MalformedURLException, IOException {
     log("Star chart showing the movement of the poles of the ecliptic and equator.");
     
-    StarCatalog starCatalog = new StarCatalog(config);
-    starCatalog.generateIntermediateStarCatalog(null);
-    List<Star> stars = starCatalog.filterByMag(ChartUtil.LIMITING_MAG);
-    log("Using " + stars.size() + " stars out of " + starCatalog.all().size());
+    StarCatalogCache.Entry cached = StarCatalogCache.instance().lookup(config, null, ChartUtil.LIMITING_MAG);
+    List<Star> stars = cached.stars();
+    log("Using " + stars.size() + " stars out of " + cached.all().size());
     
     ConstellationLines constellationLines = new ConstellationLines();
     constellationLines.readData(Boolean.FALSE);
@@ -37,7 +37,10 @@ import planisphere.util.LogUtil;
 */
 public final class LongTermPrecession {
   
-  /** Precess from a J2000 position to the target jd. */
+  /** 
+   Precess from a J2000 position to the target jd.
+   When many positions are precessed to the same jd, prefer {@link #frame(double)} or {@link #applyAll(double[], double[], double)}.
+  */
   public Position apply(Position pos, double jd) {
     Vector before = XYZ.xyzFrom(pos);
     Matrix rot = rotationMatrix(jd);
@@ -45,6 +48,22 @@ public final class LongTermPrecession {
     return XYZ.positionWithUnitDistance(after);
   }
   
+  /** 
+   Precess many J2000 positions to the target jd, in place. 
+   The rotation matrix is computed only once.
+   @param ra right ascensions in radians, one per position
+   @param dec declinations in radians, one per position
+  */
+  public void applyAll(double[] ra, double[] dec, double jd) {
+    frame(jd).applyAll(ra, dec);
+  }
+  
+  /** The precession from J2000 to the target jd, with its rotation matrix computed once, for reuse. */
+  public PrecessionFrame frame(double jd) {
+    double[] pqxy = primaryParameters(jd);
+    return frameFor(eclipticNorthPole(pqxy[0], pqxy[1]), equatorialNorthPole(pqxy[2], pqxy[3]));
+  }
+  
   /** 
    For applying precession from J2000 to the target Julian date. Equation (23).
    The matrix is applied to equatorial rectangular coordinates.
@@ -52,14 +71,29 @@ public final class LongTermPrecession {
    See <a href='https://ui.adsabs.harvard.edu/abs/1977A%26A....58....1L/abstract'>Lieske et al 1977</a>. 
   */
   public Matrix rotationMatrix(double jd) {
-    Vector k = eclipticNorthPole(jd);
-    Vector n = equatorialNorthPole(jd);
-    Vector w = n.cross(k).unit();
-    return new Matrix(
-      w,
-      n.cross(w),
-      n
-    );
+    double[] pqxy = primaryParameters(jd);
+    return rotationMatrixFor(eclipticNorthPole(pqxy[0], pqxy[1]), equatorialNorthPole(pqxy[2], pqxy[3]));
+  }
+  
+  /**
+   Return P<sub>A</sub>, Q<sub>A</sub>, X<sub>A</sub>, and Y<sub>A</sub> together, in arcseconds, in that order.
+   The periodic terms for P<sub>A</sub> and Q<sub>A</sub> have the same periods, so their sines and cosines 
+   are computed only once; likewise for X<sub>A</sub> and Y<sub>A</sub>.
+  */
+  public double[] primaryParameters(double jd) {
+    double[] result = new double[4];
+    primaryParameters(AstroUtil.julianCenturiesSinceJ2000(jd), result);
+    return result;
+  }
+  
+  /** As above, but for T in Julian centuries, writing into the given array. */
+  void primaryParameters(double T, double[] result) {
+    PrecessionDataLoader.pair(Param.P).sums(T, result, 0);
+    PrecessionDataLoader.pair(Param.X).sums(T, result, 2);
+    result[0] = polynomialP(T) + result[0];
+    result[1] = polynomialQ(T) + result[1];
+    result[2] = polynomialX(T) + result[2];
+    result[3] = polynomialY(T) + result[3];
   }
   
   /**
@@ -69,8 +103,15 @@ public final class LongTermPrecession {
   */
   public Vector eclipticNorthPole(double jd){
     double T = AstroUtil.julianCenturiesSinceJ2000(jd);
-    double P = Maths.arcsecToRads(P(T)); //rads
-    double Q = Maths.arcsecToRads(Q(T)); //rads
+    double[] PQ = new double[2];
+    PrecessionDataLoader.pair(Param.P).sums(T, PQ, 0);
+    return eclipticNorthPole(polynomialP(T) + PQ[0], polynomialQ(T) + PQ[1]);
+  }
+  
+  /** The ecliptic pole from P<sub>A</sub> and Q<sub>A</sub>, in arcseconds. */
+  static Vector eclipticNorthPole(double PA, double QA) {
+    double P = Maths.arcsecToRads(PA); //rads
+    double Q = Maths.arcsecToRads(QA); //rads
     
     double Z = Math.sqrt(Math.max(1 - P*P - Q*Q, 0));
     double S = Math.sin(ε0);
@@ -97,8 +138,15 @@ public final class LongTermPrecession {
   */
   Vector equatorialNorthPole(double jd){
     double T = AstroUtil.julianCenturiesSinceJ2000(jd);
-    double X = Maths.arcsecToRads(X(T)); //rads
-    double Y = Maths.arcsecToRads(Y(T)); //rads
+    double[] XY = new double[2];
+    PrecessionDataLoader.pair(Param.X).sums(T, XY, 0);
+    return equatorialNorthPole(polynomialX(T) + XY[0], polynomialY(T) + XY[1]);
+  }
+  
+  /** The equatorial pole from X<sub>A</sub> and Y<sub>A</sub>, in arcseconds. */
+  static Vector equatorialNorthPole(double XA, double YA) {
+    double X = Maths.arcsecToRads(XA); //rads
+    double Y = Maths.arcsecToRads(YA); //rads
     
     double W = X*X + Y*Y;
     double Z = W < 1.0 ? Math.sqrt(1.0 - W) : 0.0; 
@@ -125,7 +173,7 @@ public final class LongTermPrecession {
       - 0.00710733   *T*T 
       + 271E-9       *T*T*T
     ;
-    return exponentialTerms + periodicTerms(Param.p, T);
+    return exponentialTerms + PrecessionDataLoader.pair(Param.p).sumFirst(T);
   }
   
   /** Radians. */
@@ -135,67 +183,95 @@ public final class LongTermPrecession {
 
   /** Return ε<sub>A</sub> in arcseconds. */
   public double obliquityArcseconds(double jd) {
-    double T = AstroUtil.julianCenturiesSinceJ2000(jd);
+    return ε(AstroUtil.julianCenturiesSinceJ2000(jd));
+  }
+  
+  /** The rotation matrix from the ecliptic pole k and the equatorial pole n. */
+  static Matrix rotationMatrixFor(Vector k, Vector n) {
+    Vector w = n.cross(k).unit();
+    return new Matrix(
+      w,
+      n.cross(w),
+      n
+    );
+  }
+  
+  /** The same rotation as {@link #rotationMatrixFor(Vector, Vector)}. */
+  static PrecessionFrame frameFor(Vector k, Vector n) {
+    Vector w = n.cross(k).unit();
+    return new PrecessionFrame(w, n.cross(w), n);
+  }
+
+  /** Returns arcseconds. */
+  double ε(double T) {
     double exponentialTerms =
       + 84028.206305 
       + 0.3624445   *T
       - 0.00004039  *T*T
       - 110E-9      *T*T*T
     ;
-    return exponentialTerms + periodicTerms(Param.epsilon, T);
+    return exponentialTerms + PrecessionDataLoader.pair(Param.p).sumSecond(T);
   }
 
   /** Obliquity at J2000.0 (radians). */
   private static final double ε0 = Maths.arcsecToRads(84381.406);
   
   /** Returns arcseconds. */
-  private double P(double T) {
-    double exponentialTerms = 
+  double P(double T) {
+    return polynomialP(T) + PrecessionDataLoader.pair(Param.P).sumFirst(T);
+  }
+  
+  /** The polynomial part only. Returns arcseconds. */
+  private double polynomialP(double T) {
+    return 
       + 5851.607687 
       -    0.1189000  *T 
       -    0.00028913 *T*T 
       +    (101e-9)   *T*T*T
     ;
-    return exponentialTerms + periodicTerms(Param.P, T);
   }
   /** Returns arcseconds. */
-  private double Q(double T) {
-    double exponentialTerms =
+  double Q(double T) {
+    return polynomialQ(T) + PrecessionDataLoader.pair(Param.P).sumSecond(T);
+  }
+  
+  /** The polynomial part only. Returns arcseconds. */
+  private double polynomialQ(double T) {
+    return
       - 1600.886300 
       +    1.1689818  *T 
       -    0.00000020 *T*T
       -    437E-9     *T*T*T
     ;
-    return exponentialTerms + periodicTerms(Param.Q, T);
   }
   
   /** Returns arcseconds. */
-  private double X(double T) {
-    double exponentialTerms =
+  double X(double T) {
+    return polynomialX(T) + PrecessionDataLoader.pair(Param.X).sumFirst(T);
+  }
+  
+  /** The polynomial part only. Returns arcseconds. */
+  private double polynomialX(double T) {
+    return
       + 5453.282155 
       + 0.4252841  *T
       - 0.00037173 *T*T
       - 152E-9     *T*T*T
     ;
-    return exponentialTerms + periodicTerms(Param.X, T);
   }
   /** Returns arcseconds. */
-  private double Y(double T) {
-    double exponentialTerms =
+  double Y(double T) {
+    return polynomialY(T) + PrecessionDataLoader.pair(Param.X).sumSecond(T);
+  }
+  
+  /** The polynomial part only. Returns arcseconds. */
+  private double polynomialY(double T) {
+    return
      - 73750.930350
      - 0.7675452   *T
      - 0.00018725  *T*T
      + 231E-9      *T*T*T
     ;
-    return exponentialTerms + periodicTerms(Param.Y, T);
-  }
-  
-  private double periodicTerms(Param param, double T) {
-    double result = 0.0; 
-    for (PeriodicTerm periodicTerm : PrecessionDataLoader.periodicTerms().get(param)) {
-      result = result + periodicTerm.contributionToSum(T); // arcseconds
-    }
-    return result;
   }
   
   /** Informal test harness. */
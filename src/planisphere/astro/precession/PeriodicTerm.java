@@ -1,10 +1,9 @@
 package planisphere.astro.precession;
 
-import static java.lang.Math.cos;
-import static java.lang.Math.sin;
-import static planisphere.math.Maths.*;
-
-/** A cosine-term and a sine-term having the same period. */
+/** 
+ A cosine-term and a sine-term having the same period, as read from a data file. 
+ The terms are evaluated by {@link PeriodicTermPair}. 
+*/
 final class PeriodicTerm {
   
   /** Cosine: amplitude in arcseconds. */
@@ -15,9 +14,4 @@ final class PeriodicTerm {
   
   /** Period in Julian centuries. */
   double P;
-  
-  /** Returns arcseconds. T in Julian centuries. */
-  double contributionToSum(double T) {
-    return C * cos(TWO_PI * T / P) + S * sin(TWO_PI * T / P);  
-  }
-}
\ No newline at end of file
+}
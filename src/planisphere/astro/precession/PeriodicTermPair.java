@@ -0,0 +1,100 @@
+package planisphere.astro.precession;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static planisphere.math.Maths.TWO_PI;
+
+import java.util.List;
+
+/**
+ The periodic terms for a pair of precession parameters, as flat arrays of primitives.
+
+ <P>The two parameters in each data file have the same periods. Each angle 2πT/P is used by both
+ parameters, so its sine and cosine are computed only once, in a single loop over both sums.
+
+ <P>Each sum is accumulated in the same order as the data file, so the result is the same as
+ summing the terms for each parameter separately.
+ Immutable.
+*/
+final class PeriodicTermPair {
+
+  /**
+   Build from the terms for each parameter.
+   The lists must have the same size, and the same period for each term.
+  */
+  static PeriodicTermPair of(List<PeriodicTerm> first, List<PeriodicTerm> second) {
+    if (first.size() != second.size()) {
+      throw new IllegalArgumentException("Mismatched number of periodic terms: " + first.size() + " " + second.size());
+    }
+    int n = first.size();
+    PeriodicTermPair result = new PeriodicTermPair(n);
+    for(int i = 0; i < n; ++i) {
+      if (first.get(i).P != second.get(i).P) {
+        throw new IllegalArgumentException("Mismatched periods for periodic term " + i + ": " + first.get(i).P + " " + second.get(i).P);
+      }
+      result.period[i] = first.get(i).P;
+      result.cosFirst[i] = first.get(i).C;
+      result.sinFirst[i] = first.get(i).S;
+      result.cosSecond[i] = second.get(i).C;
+      result.sinSecond[i] = second.get(i).S;
+    }
+    return result;
+  }
+
+  /**
+   Sum the periodic terms for both parameters, in arcseconds.
+   @param T Julian centuries since J2000
+   @param result the sum for the first parameter is written at the given index, and the sum for the second parameter after it.
+  */
+  void sums(double T, double[] result, int index) {
+    double first = 0.0;
+    double second = 0.0;
+    for(int i = 0; i < period.length; ++i) {
+      double angle = TWO_PI * T / period[i];
+      double c = cos(angle);
+      double s = sin(angle);
+      first = first + (cosFirst[i] * c + sinFirst[i] * s);
+      second = second + (cosSecond[i] * c + sinSecond[i] * s);
+    }
+    result[index] = first;
+    result[index + 1] = second;
+  }
+
+  /** The sum for the first parameter only, in arcseconds. */
+  double sumFirst(double T) {
+    double result = 0.0;
+    for(int i = 0; i < period.length; ++i) {
+      double angle = TWO_PI * T / period[i];
+      result = result + (cosFirst[i] * cos(angle) + sinFirst[i] * sin(angle));
+    }
+    return result;
+  }
+
+  /** The sum for the second parameter only, in arcseconds. */
+  double sumSecond(double T) {
+    double result = 0.0;
+    for(int i = 0; i < period.length; ++i) {
+      double angle = TWO_PI * T / period[i];
+      result = result + (cosSecond[i] * cos(angle) + sinSecond[i] * sin(angle));
+    }
+    return result;
+  }
+
+  // PRIVATE
+
+  /** Julian centuries. */
+  private final double[] period;
+  /** Amplitudes, in arcseconds. */
+  private final double[] cosFirst;
+  private final double[] sinFirst;
+  private final double[] cosSecond;
+  private final double[] sinSecond;
+
+  private PeriodicTermPair(int n) {
+    period = new double[n];
+    cosFirst = new double[n];
+    sinFirst = new double[n];
+    cosSecond = new double[n];
+    sinSecond = new double[n];
+  }
+}
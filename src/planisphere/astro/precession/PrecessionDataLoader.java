@@ -32,14 +32,22 @@ final class PrecessionDataLoader {
     readPeriodicTermData();
   }
   
-  /** Return a data structure to the caller containing all periodic terms for all parameters defined in the {@link Param} enumeration. */
-  static Map<Param, List<PeriodicTerm>> periodicTerms() {
-    return PERIODIC_TERMS;
+  /** 
+   Return the periodic terms for a pair of parameters, compiled into flat arrays.
+   @param first the first parameter in the name of a data file: P, X, or p. 
+  */
+  static PeriodicTermPair pair(Param first) {
+    PeriodicTermPair result = PAIRS.get(first);
+    if (result == null) {
+      throw new IllegalArgumentException("Not the first parameter of a pair: " + first);
+    }
+    return result;
   }
   
   // PRIVATE 
   
   private static Map<Param, List<PeriodicTerm>> PERIODIC_TERMS;
+  private static Map<Param, PeriodicTermPair> PAIRS;
 
   /** Mandatory file naming convention. 'P_and_Q.utf8', for example. */
   private static final String SEPARATOR = "_and_";
@@ -109,6 +117,18 @@ final class PrecessionDataLoader {
       }
       PERIODIC_TERMS.put(param, periodicTerms);
     }
+    compilePairs();
+  }
+  
+  /** The pairing of parameters comes from the file names. */
+  private static void compilePairs() {
+    PAIRS = new LinkedHashMap<Param, PeriodicTermPair>();
+    for(String fileName : fileNames()) {
+      String[] names = fileName.substring(0, fileName.length() - EXTENSION.length()).split(SEPARATOR);
+      Param first = Param.valueOf(names[0]);
+      Param second = Param.valueOf(names[1]);
+      PAIRS.put(first, PeriodicTermPair.of(PERIODIC_TERMS.get(first), PERIODIC_TERMS.get(second)));
+    }
   }
   
   private static Double chop(String line, int col, boolean useFirstCol) {
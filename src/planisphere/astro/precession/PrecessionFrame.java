@@ -0,0 +1,112 @@
+package planisphere.astro.precession;
+
+import static java.lang.Math.asin;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static planisphere.math.Maths.atan3;
+
+import planisphere.astro.star.Position;
+import planisphere.math.Vector;
+
+/**
+ Precession from J2000 to a single target date, with the rotation matrix evaluated only once.
+
+ <P>Building the matrix is the expensive part of precession, since it evaluates the periodic terms.
+ When many positions are precessed to the same date, build one of these objects, and reuse it.
+ See {@link LongTermPrecession#frame(double)}.
+
+ <P>The arithmetic is the same as {@link LongTermPrecession#apply(Position, double)}, so the results are identical.
+ Immutable.
+*/
+public final class PrecessionFrame {
+
+  /** Rotate a single J2000 position to the target date. Returns a new object. */
+  public Position apply(Position pos) {
+    double x = cos(pos.δ) * cos(pos.α);
+    double y = cos(pos.δ) * sin(pos.α);
+    double z = sin(pos.δ);
+    return new Position(
+      atan3(m10 * x + m11 * y + m12 * z, m00 * x + m01 * y + m02 * z),
+      asin(m20 * x + m21 * y + m22 * z)
+    );
+  }
+
+  /**
+   Rotate many J2000 positions to the target date, in place.
+   No objects are created.
+   @param ra right ascensions in radians, one per position
+   @param dec declinations in radians, one per position
+  */
+  public void applyAll(double[] ra, double[] dec) {
+    if (ra.length != dec.length) {
+      throw new IllegalArgumentException("Mismatched lengths for ra and dec: " + ra.length + " " + dec.length);
+    }
+    applyAll(ra, dec, 0, ra.length);
+  }
+
+  /**
+   Rotate a range of J2000 positions to the target date, in place.
+   Distinct ranges of the same arrays can be processed by different threads at the same time.
+   
+   <P>Large ranges are processed in blocks, in three passes per block: to unit vectors, 
+   the rotation, then back to spherical coordinates. The rotation pass is a simple loop over 
+   primitive arrays, which the JIT compiler can turn into SIMD instructions.
+   Small ranges (a single star, for instance) use a simple loop, with no scratch arrays. 
+   The results are the same in both cases.
+   @param from index of the first position, inclusive
+   @param to index of the last position, exclusive
+  */
+  public void applyAll(double[] ra, double[] dec, int from, int to) {
+    if (to - from < BLOCK_SIZE) {
+      applyEach(ra, dec, from, to);
+    }
+    else {
+      double[] x = new double[BLOCK_SIZE];
+      double[] y = new double[BLOCK_SIZE];
+      double[] z = new double[BLOCK_SIZE];
+      for(int start = from; start < to; start = start + BLOCK_SIZE) {
+        int end = Math.min(start + BLOCK_SIZE, to);
+        XYZ.xyzFromAll(ra, dec, start, end, x, y, z);
+        rotate(x, y, z, end - start);
+        XYZ.positionsWithUnitDistance(x, y, z, ra, dec, start, end);
+      }
+    }
+  }
+
+  PrecessionFrame(Vector row1, Vector row2, Vector row3){
+    this.m00 = row1.x; this.m01 = row1.y; this.m02 = row1.z;
+    this.m10 = row2.x; this.m11 = row2.y; this.m12 = row2.z;
+    this.m20 = row3.x; this.m21 = row3.y; this.m22 = row3.z;
+  }
+
+  // PRIVATE
+
+  private final double m00, m01, m02;
+  private final double m10, m11, m12;
+  private final double m20, m21, m22;
+  
+  /** Small enough for the scratch arrays to stay in the L1 cache. */
+  private static final int BLOCK_SIZE = 256;
+
+  private void applyEach(double[] ra, double[] dec, int from, int to) {
+    for(int i = from; i < to; ++i) {
+      double x = cos(dec[i]) * cos(ra[i]);
+      double y = cos(dec[i]) * sin(ra[i]);
+      double z = sin(dec[i]);
+      ra[i] = atan3(m10 * x + m11 * y + m12 * z, m00 * x + m01 * y + m02 * z);
+      dec[i] = asin(m20 * x + m21 * y + m22 * z);
+    }
+  }
+  
+  /** Rotate the first n unit vectors, in place. */
+  private void rotate(double[] x, double[] y, double[] z, int n) {
+    for(int i = 0; i < n; ++i) {
+      double a = x[i];
+      double b = y[i];
+      double c = z[i];
+      x[i] = m00 * a + m01 * b + m02 * c;
+      y[i] = m10 * a + m11 * b + m12 * c;
+      z[i] = m20 * a + m21 * b + m22 * c;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package planisphere.astro.precession;
+
+import static planisphere.util.LogUtil.log;
+
+import java.util.function.DoubleUnaryOperator;
+
+import planisphere.astro.star.Position;
+import planisphere.astro.time.AstroUtil;
+import planisphere.astro.time.GregorianCal;
+import planisphere.math.Chebyshev;
+import planisphere.math.Maths;
+import planisphere.math.Matrix;
+import planisphere.math.Vector;
+
+/**
+ Long-term precession over a fixed interval of time, approximated with Chebyshev series.
+
+ <P>{@link LongTermPrecession} evaluates a polynomial and a series of periodic terms on every call.
+ Over a limited interval, the five primary quantities P<sub>A</sub>, Q<sub>A</sub>, X<sub>A</sub>, Y<sub>A</sub>
+ and ε<sub>A</sub> are smooth functions of time. Here, each is fitted once with a Chebyshev series,
+ which is then cheap to evaluate for any date in the interval.
+
+ <P>The error of the fit with respect to the full series is measured when the model is built, and is
+ available from {@link #maxErrorArcseconds()}. For a single year, the default number of coefficients
+ reproduces the full series to far below a micro-arcsecond. Long intervals need more coefficients.
+
+ <P>Dates outside the interval are an error.
+ Immutable.
+*/
+public final class PrecessionModel {
+
+  /** The number of coefficients used by {@link #forYear(int)} - {@value}. */
+  public static final int DEFAULT_NUM_COEFFICIENTS = 12;
+
+  /**
+   Fit the model over the given year, plus a margin of {@value #MARGIN_DAYS} days on either side.
+   The margin covers dates near the start and end of the year, when expressed in UT instead of in local time.
+  */
+  public static PrecessionModel forYear(int year) {
+    double start = GregorianCal.jd(year, 1, 1.0) - MARGIN_DAYS;
+    double end = GregorianCal.jd(year + 1, 1, 1.0) + MARGIN_DAYS;
+    return fit(start, end, DEFAULT_NUM_COEFFICIENTS);
+  }
+
+  /**
+   Fit the model over any interval.
+   @param jdStart start of the interval
+   @param jdEnd end of the interval
+   @param numCoefficients per quantity; more are needed for longer intervals.
+  */
+  public static PrecessionModel fit(double jdStart, double jdEnd, int numCoefficients) {
+    return new PrecessionModel(jdStart, jdEnd, numCoefficients);
+  }
+
+  /** Start of the interval. */
+  public double start() { return jdStart; }
+
+  /** End of the interval. */
+  public double end() { return jdEnd; }
+
+  /** The largest error of the fit for any of the quantities, compared with the full series, in arcseconds. */
+  public double maxErrorArcseconds() { return maxError; }
+
+  /** The same as {@link LongTermPrecession#obliquity(double)}, in radians. */
+  public double obliquity(double jd) {
+    return Maths.arcsecToRads(obliquityArcseconds(jd));
+  }
+
+  /** The same as {@link LongTermPrecession#obliquityArcseconds(double)}. */
+  public double obliquityArcseconds(double jd) {
+    return ε.value(T(jd));
+  }
+
+  /** The same as {@link LongTermPrecession#eclipticNorthPole(double)}. */
+  public Vector eclipticNorthPole(double jd) {
+    double T = T(jd);
+    return LongTermPrecession.eclipticNorthPole(P.value(T), Q.value(T));
+  }
+
+  /** The same as {@link LongTermPrecession#rotationMatrix(double)}. */
+  public Matrix rotationMatrix(double jd) {
+    return LongTermPrecession.rotationMatrixFor(eclipticNorthPole(jd), equatorialNorthPole(jd));
+  }
+
+  /** The same as {@link LongTermPrecession#frame(double)}. */
+  public PrecessionFrame frame(double jd) {
+    return LongTermPrecession.frameFor(eclipticNorthPole(jd), equatorialNorthPole(jd));
+  }
+
+  /** The same as {@link LongTermPrecession#apply(Position, double)}. */
+  public Position apply(Position pos, double jd) {
+    return frame(jd).apply(pos);
+  }
+
+  @Override public String toString() {
+    return "Precession model from JD " + jdStart + " to " + jdEnd + ", max fit error " + maxError + " arcseconds";
+  }
+
+  // PRIVATE
+
+  private static final double MARGIN_DAYS = 10.0;
+
+  /** Compare the fit with the full series at this many points per coefficient. */
+  private static final int SAMPLES_PER_COEFFICIENT = 4;
+
+  private final double jdStart;
+  private final double jdEnd;
+  private final Chebyshev P;
+  private final Chebyshev Q;
+  private final Chebyshev X;
+  private final Chebyshev Y;
+  private final Chebyshev ε;
+  private final double maxError;
+
+  private PrecessionModel(double jdStart, double jdEnd, int numCoefficients) {
+    this.jdStart = jdStart;
+    this.jdEnd = jdEnd;
+    LongTermPrecession full = new LongTermPrecession();
+    double start = T(jdStart);
+    double end = T(jdEnd);
+    int numSamples = SAMPLES_PER_COEFFICIENT * numCoefficients + 1;
+    double error = 0.0;
+    DoubleUnaryOperator[] series = {full::P, full::Q, full::X, full::Y, full::ε};
+    Chebyshev[] fits = new Chebyshev[series.length];
+    for(int i = 0; i < series.length; ++i) {
+      fits[i] = Chebyshev.fit(series[i], start, end, numCoefficients);
+      error = Math.max(error, fits[i].maxError(series[i], numSamples));
+    }
+    this.P = fits[0];
+    this.Q = fits[1];
+    this.X = fits[2];
+    this.Y = fits[3];
+    this.ε = fits[4];
+    this.maxError = error;
+    log(toString());
+  }
+
+  private Vector equatorialNorthPole(double jd) {
+    double T = T(jd);
+    return LongTermPrecession.equatorialNorthPole(X.value(T), Y.value(T));
+  }
+
+  /** Julian centuries. */
+  private static double T(double jd) {
+    return AstroUtil.julianCenturiesSinceJ2000(jd);
+  }
+}
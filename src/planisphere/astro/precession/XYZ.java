@@ -45,6 +45,32 @@ public final class XYZ {
     );
   }
   
+  /**
+   Batch form of {@link #xyzFrom(Position)}, for many positions. No objects are created.
+   The positions are read from the range [from, to) of the ra and dec arrays. 
+   The coordinates are written to the start of the x, y, z arrays.
+  */
+  public static void xyzFromAll(double[] ra, double[] dec, int from, int to, double[] x, double[] y, double[] z) {
+    for(int i = from; i < to; ++i) {
+      double cosδ = cos(dec[i]);
+      x[i - from] = cosδ * cos(ra[i]);
+      y[i - from] = cosδ * sin(ra[i]);
+      z[i - from] = sin(dec[i]);
+    }
+  }
+  
+  /**
+   Batch form of {@link #positionWithUnitDistance(Vector)}, the inverse of {@link #xyzFromAll}. No objects are created.
+   The coordinates are read from the start of the x, y, z arrays.
+   The positions are written to the range [from, to) of the ra and dec arrays.
+  */
+  public static void positionsWithUnitDistance(double[] x, double[] y, double[] z, double[] ra, double[] dec, int from, int to) {
+    for(int i = from; i < to; ++i) {
+      ra[i] = atan3(y[i - from], x[i - from]);
+      dec[i] = asin(z[i - from]);
+    }
+  }
+  
   /** XYZ to equatorial spherical coords. The object is at any distance. */
   public static Position positionFrom(Vector xyz) {
     return new Position(
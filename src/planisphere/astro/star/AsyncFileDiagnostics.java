@@ -0,0 +1,69 @@
+package planisphere.astro.star;
+
+import static planisphere.util.LogUtil.log;
+import static planisphere.util.LogUtil.warn;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import planisphere.util.DataFileReader;
+
+/**
+ Write diagnostics to text files, on a background thread.
+
+ <P>Each call to {@link #save(String, Supplier)} creates a new file in the given directory, with a unique name.
+ Many charts can be generated at the same time, without writing to the same file.
+
+ <P>All instances share a single background thread. The thread ends when it has been idle for a short time,
+ so it doesn't keep the program running. Pending files are completed before the program exits.
+ A failure to write a file is logged, and is otherwise ignored.
+*/
+final class AsyncFileDiagnostics implements StarCatalogDiagnostics {
+
+  /** @param dir an existing directory */
+  AsyncFileDiagnostics(String dir) {
+    this.dir = Paths.get(dir);
+  }
+
+  @Override public boolean isOn() {
+    return true;
+  }
+
+  @Override public void save(String name, Supplier<List<String>> lines) {
+    EXECUTOR.execute(() -> write(name, lines));
+  }
+
+  // PRIVATE
+
+  private final Path dir;
+
+  private static final ThreadPoolExecutor EXECUTOR = executor();
+
+  private static ThreadPoolExecutor executor() {
+    ThreadPoolExecutor result = new ThreadPoolExecutor(1, 1, 2, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+      Thread thread = new Thread(task, "star-catalog-diagnostics");
+      thread.setDaemon(false); //finish writing before exit
+      return thread;
+    });
+    result.allowCoreThreadTimeOut(true);
+    return result;
+  }
+
+  private void write(String name, Supplier<List<String>> lines) {
+    try {
+      Path file = Files.createTempFile(dir, name + "-", ".utf8");
+      Files.write(file, lines.get(), DataFileReader.ENCODING);
+      log("Diagnostics written to " + file.toAbsolutePath());
+    }
+    catch(IOException | RuntimeException ex) {
+      warn("Can't write the diagnostics '" + name + "' to " + dir + ". " + ex);
+    }
+  }
+}
@@ -1,16 +1,15 @@
 package planisphere.astro.star;
 
+import static java.lang.Math.asin;
 import static java.lang.Math.cos;
 import static java.lang.Math.sin;
 import static planisphere.astro.time.AstroUtil.DAYS_PER_JULIAN_YEAR;
 import static planisphere.astro.time.AstroUtil.KM_PER_AU;
 import static planisphere.astro.time.AstroUtil.SECONDS_PER_DAY;
 import static planisphere.astro.time.AstroUtil.angularSeparation;
+import static planisphere.math.Maths.atan3;
 
-import planisphere.astro.precession.XYZ;
 import planisphere.math.Maths;
-import planisphere.math.Matrix;
-import planisphere.math.Vector;
 
 /** 
  Proper motion of a star across the sky.
@@ -63,8 +62,39 @@ public final class ProperMotion {
    The star's proper motion is in arcseconds, and its position is in rads. 
   */
   public double applyTo(Star star) {
-    boolean hasAllData = star.PARALLAX != null && star.PARALLAX > 0 && star.RADIAL_VELOCITY != null;
-    double result = hasAllData ? threeD(star) : twoD(star);
+    Position pos = new Position(star.RA, star.DEC);
+    double parallax = star.PARALLAX == null ? Double.NaN : star.PARALLAX;
+    double radialVelocity = star.RADIAL_VELOCITY == null ? Double.NaN : star.RADIAL_VELOCITY;
+    double result = applyTo(pos, star.PROPER_MOTION_RA, star.PROPER_MOTION_DEC, parallax, radialVelocity);
+    star.RA = pos.α;
+    star.DEC = pos.δ;
+    return result;
+  }
+  
+  /**
+   Apply proper motion to a row in a star table. 
+   The table itself is not changed.
+   On input, the given position must hold the position of the star at jdStart.
+   On output, the given position holds the position at jdEnd.
+   
+   <P>Returns the amount of proper motion applied, in arcseconds.
+  */
+  public double applyTo(StarTable table, int row, Position pos) {
+    return applyTo(pos, table.properMotionRa(row), table.properMotionDec(row), table.parallax(row), table.radialVelocity(row));
+  }
+
+  /**
+   Apply proper motion to a position, using primitive data.
+   On input, the given position must hold the position of the star at jdStart.
+   On output, the given position holds the position at jdEnd.
+   
+   <P>Returns the amount of proper motion applied, in arcseconds.
+   @param parallax arcseconds; NaN if missing
+   @param radialVelocity km/s; NaN if missing
+  */
+  public double applyTo(Position pos, double pmRa, double pmDec, double parallax, double radialVelocity) {
+    boolean hasAllData = parallax > 0 && !Double.isNaN(radialVelocity);
+    double result = hasAllData ? threeD(pos, pmRa, pmDec, parallax, radialVelocity) : twoD(pos, pmRa, pmDec);
     return result;
   }
 
@@ -82,47 +112,66 @@ public final class ProperMotion {
   }
   
   /** Classical 2D proper motion across the sky. Returns arcseconds. */
-  private double twoD(Star star) {
+  private double twoD(Position pos, double pmRa, double pmDec) {
     //note the factor for declination! note as well the behavior near the pole:
     double years = julianYears();
-    double Δα = (star.PROPER_MOTION_RA * years)/Math.cos(star.DEC); //arcsecs
-    double Δδ = star.PROPER_MOTION_DEC * years; //arcsecs
-    star.RA = star.RA + Maths.degToRads(Δα/3600.0); //no int div
-    star.DEC = star.DEC + Maths.degToRads(Δδ/3600.0); //no int div
+    double Δα = (pmRa * years)/Math.cos(pos.δ); //arcsecs
+    double Δδ = pmDec * years; //arcsecs
+    pos.α = pos.α + Maths.degToRads(Δα/3600.0); //no int div
+    pos.δ = pos.δ + Maths.degToRads(Δδ/3600.0); //no int div
     
-    double result = Math.sqrt(Math.pow(star.PROPER_MOTION_RA * years, 2) + Math.pow(star.PROPER_MOTION_DEC * years, 2)); //arcsecs
+    double result = Math.sqrt(Math.pow(pmRa * years, 2) + Math.pow(pmDec * years, 2)); //arcsecs
     return result; //arcsecs
   }
   
-  /**  3D proper motion. Returns arcseconds. */
-  private double threeD(Star star) {
-    double pRads = Maths.arcsecToRads(star.PARALLAX); //rads
+  /**  
+   3D proper motion. Returns arcseconds.
+   
+   <P>Called once per star, for every star in the catalog, so no objects are created here.
+   The arithmetic is the same as the vector form, in the same order:
+   <pre>
+   u0 = r * (x, y, z)
+   udot0 = rotation * (pmRA, pmDEC, rDot)
+   u2 = u0 + udot0 * days
+   </pre> 
+  */
+  private double threeD(Position pos, double pmRa, double pmDec, double parallax, double radialVelocity) {
+    double α = pos.α;
+    double δ = pos.δ;
+    double pRads = Maths.arcsecToRads(parallax); //rads
     double r = 1/pRads; //AU
-    Vector u0 = XYZ.xyzFrom(new Position(star.RA, star.DEC), r); //AU, equatorial rectangular coords
+    double sinα = sin(α);
+    double cosα = cos(α);
+    double sinδ = sin(δ);
+    double cosδ = cos(δ);
+    //AU, equatorial rectangular coords
+    double u0x = r * cosδ * cosα;
+    double u0y = r * cosδ * sinα;
+    double u0z = r * sinδ;
     
     //convert proper motion (arcsec/year) and radial velocity (km/s) to units of AU/day
-    double pmRA = Maths.arcsecToRads(star.PROPER_MOTION_RA) / (DAYS_PER_JULIAN_YEAR * pRads);
-    double pmDEC = Maths.arcsecToRads(star.PROPER_MOTION_DEC)/ (DAYS_PER_JULIAN_YEAR * pRads);
-    
-    double rDot = (SECONDS_PER_DAY * star.RADIAL_VELOCITY)/KM_PER_AU; //from km/s
-    Vector velocityComponents = new Vector(pmRA, pmDEC, rDot); // AU/day, in weird rotated system of coords
+    double pmRA = Maths.arcsecToRads(pmRa) / (DAYS_PER_JULIAN_YEAR * pRads);
+    double pmDEC = Maths.arcsecToRads(pmDec)/ (DAYS_PER_JULIAN_YEAR * pRads);
+    double rDot = (SECONDS_PER_DAY * radialVelocity)/KM_PER_AU; //from km/s
     
-    //two simple rotations are needed in order to get the components into the same rectilinear coordinate system as the position vector u0
-    Vector row1 = new Vector( -sin(star.RA),   -cos(star.RA)*sin(star.DEC),   cos(star.RA)*cos(star.DEC));
-    Vector row2 = new Vector(  cos(star.RA),   -sin(star.RA)*sin(star.DEC),   sin(star.RA)*cos(star.DEC));
-    Vector row3 = new Vector(   0,                  cos(star.DEC),                   sin(star.DEC));
-    Matrix rotations = new Matrix(row1, row2, row3);
-    Vector udot0 = rotations.times(velocityComponents); //  AU/day, in 'standard' coordinates with axes in the right direction
+    //two simple rotations are needed in order to get the components (in a weird rotated system of coords) 
+    //into the same rectilinear coordinate system as the position vector u0; AU/day
+    double udot0x = -sinα * pmRA + (-cosα*sinδ) * pmDEC + (cosα*cosδ) * rDot;
+    double udot0y = cosα * pmRA + (-sinα*sinδ) * pmDEC + (sinα*cosδ) * rDot;
+    double udot0z = cosδ * pmDEC + sinδ * rDot;
 
-    Vector u2 = u0.plus(udot0.times(julianDays()));
-    Position newPos = XYZ.positionFrom(u2);
-    Position oldPos = new Position(star.RA, star.DEC);
+    double days = julianDays();
+    double u2x = u0x + days * udot0x;
+    double u2y = u0y + days * udot0y;
+    double u2z = u0z + days * udot0z;
+    double newα = atan3(u2y, u2x);
+    double newδ = asin(u2z / Math.sqrt(u2x*u2x + u2y*u2y + u2z*u2z));
     
-    double result = angularSeparation(oldPos, newPos);
+    double result = angularSeparation(α, δ, newα, newδ);
     
     //finally, update the coordinates in place
-    star.RA = newPos.α;
-    star.DEC = newPos.δ;
+    pos.α = newα;
+    pos.δ = newδ;
     
     return Maths.radsToArcsecs(result);
   }
@@ -0,0 +1,126 @@
+package planisphere.astro.star;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ Summary statistics for the proper motion applied to a star catalog.
+
+ <P>Each chunk of the catalog collects its own statistics, with no shared state.
+ The results for the chunks are then merged, in order.
+ The result is the same as if all of the stars were processed sequentially.
+
+ <P>The lists of stars are optional, since they're only for diagnostics.
+ The largest proper motion, and the number of stars that moved more than a degree, are always collected.
+
+ <P>The order of the stars is by descending proper motion.
+ Ties are broken by the row in the star table.
+*/
+final class ProperMotionStats {
+
+  /** The number of the stars having the largest proper motion that are retained. */
+  static final int NUM_TOP = 25;
+
+  /** Stars at least this bright are retained. */
+  static final double BRIGHT_MAG = 1.5;
+
+  /** A row in the star table, and the proper motion applied to it. */
+  static final class Stat implements Comparable<Stat> {
+    Stat(int row, double pm){
+      this.row = row;
+      this.properMotion = pm;
+    }
+    /** Row in the star table. */
+    final int row;
+    /** Arcseconds. Proper motion of the star from catalog epoch to the target epoch. */
+    final double properMotion;
+    /** Descending order of proper motion, then ascending order of row. */
+    @Override public int compareTo(Stat that) {
+      int result = Double.compare(that.properMotion, this.properMotion);
+      return result != 0 ? result : Integer.compare(this.row, that.row);
+    }
+  }
+
+  /** @param withLists if false, then {@link #top()} and {@link #bright()} are always empty. */
+  ProperMotionStats(boolean withLists){
+    this.withLists = withLists;
+  }
+
+  /** Add the proper motion applied to a star, in arcseconds. */
+  void add(int row, double arcsecs, double mag) {
+    if (arcsecs > maxArcSecs) {
+      maxArcSecs = arcsecs;
+      fastest = row;
+    }
+    if (arcsecs > ONE_DEGREE) {
+      ++countAboveOneDegree;
+    }
+    if (withLists) {
+      Stat stat = new Stat(row, arcsecs);
+      addToTop(stat);
+      if (mag <= BRIGHT_MAG) {
+        bright.add(stat);
+      }
+    }
+  }
+
+  /**
+   Merge the results of a later chunk into this object.
+   The chunks must be merged in the order of their rows.
+  */
+  ProperMotionStats merge(ProperMotionStats that) {
+    if (that.maxArcSecs > maxArcSecs) {
+      maxArcSecs = that.maxArcSecs;
+      fastest = that.fastest;
+    }
+    countAboveOneDegree = countAboveOneDegree + that.countAboveOneDegree;
+    for(Stat stat : that.top) {
+      addToTop(stat);
+    }
+    bright.addAll(that.bright);
+    return this;
+  }
+
+  /** The largest proper motion, in arcseconds. */
+  double maxArcSecs() { return maxArcSecs; }
+
+  /** The row of the star having the largest proper motion. -1 if no star moved. */
+  int fastest() { return fastest; }
+
+  int countAboveOneDegree() { return countAboveOneDegree; }
+
+  /** The stars with the largest proper motion, in order. */
+  List<Stat> top() {
+    return Collections.unmodifiableList(top);
+  }
+
+  /** The bright stars, in order of their proper motion. See {@link #BRIGHT_MAG}. */
+  List<Stat> bright() {
+    List<Stat> result = new ArrayList<>(bright);
+    Collections.sort(result);
+    return result;
+  }
+
+  // PRIVATE
+
+  private static final double ONE_DEGREE = 3600.0;
+
+  private final boolean withLists;
+  private double maxArcSecs = 0.0;
+  private int fastest = -1;
+  private int countAboveOneDegree = 0;
+  /** Sorted. */
+  private List<Stat> top = new ArrayList<>(NUM_TOP + 1);
+  private List<Stat> bright = new ArrayList<>();
+
+  private void addToTop(Stat stat) {
+    if (top.size() < NUM_TOP || stat.compareTo(top.get(top.size() - 1)) < 0) {
+      int idx = Collections.binarySearch(top, stat);
+      top.add(-(idx + 1), stat);
+      if (top.size() > NUM_TOP) {
+        top.remove(NUM_TOP);
+      }
+    }
+  }
+}
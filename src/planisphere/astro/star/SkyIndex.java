@@ -0,0 +1,407 @@
+package planisphere.astro.star;
+
+import static java.lang.Math.acos;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static java.lang.Math.sqrt;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ Spatial index over the positions in a {@link StarTable}, using a Hierarchical Triangular Mesh (HTM).
+
+ <P>The sky is divided into the 8 faces of an octahedron. Each triangle is then divided into 4 smaller triangles,
+ down to a fixed depth. Each star is placed in one of the smallest triangles (a 'trixel').
+ A query for a region of the sky descends the tree of triangles, and skips the ones that can't overlap the region,
+ or that hold no stars. Triangles entirely inside the region contribute all of their stars, with no further tests.
+ Reference: Kunszt, Szalay, and Thakar, <em>The Hierarchical Triangular Mesh</em>, 2001.
+
+ <P>The index is built on the positions in the table, so it's only valid for the date of those positions.
+ Since positions change with proper motion and precession, build a new index for each date.
+
+ <P>The results of a query are rows of the table, in order of increasing magnitude.
+ Since the table is sorted by magnitude, a limiting magnitude is simply a limit on the row.
+
+ <P>Immutable.
+*/
+public final class SkyIndex {
+
+  /** The default depth of the mesh: {@value}. There are 8 * 4^depth trixels. */
+  public static final int DEFAULT_DEPTH = 5;
+
+  /** Build an index for the given table, with the default depth. */
+  public static SkyIndex of(StarTable table) {
+    return of(table, DEFAULT_DEPTH);
+  }
+
+  /**
+   Build an index for the given table.
+   @param depth 0 for just the 8 faces of the octahedron; at most {@value #MAX_DEPTH}.
+  */
+  public static SkyIndex of(StarTable table, int depth) {
+    if (depth < 0 || depth > MAX_DEPTH) {
+      throw new IllegalArgumentException("Depth must be in the range 0.." + MAX_DEPTH + ": " + depth);
+    }
+    return new SkyIndex(table, depth);
+  }
+
+  /** The number of trixels (the smallest triangles) in the mesh. */
+  public int numTrixels() {
+    return start.length - 1;
+  }
+
+  /** The trixel that contains the given position. */
+  public int trixelFor(Position position) {
+    return locate(cos(position.δ) * cos(position.α), cos(position.δ) * sin(position.α), sin(position.δ));
+  }
+
+  /**
+   The rows of the stars within a circle on the sky, inclusive, brighter than or equal to a limiting magnitude.
+   @param center the center of the circle
+   @param radius angular radius of the circle, in radians
+  */
+  public int[] withinCap(Position center, double radius, double limitingMag) {
+    return query(new Cap(center, radius), limitingMag);
+  }
+
+  /**
+   The rows of the stars within a convex polygon on the sky, inclusive, brighter than or equal to a limiting magnitude.
+   The sides of the polygon are arcs of great circles. The polygon must be smaller than a hemisphere.
+   The vertices can be in either direction (clockwise or counter-clockwise).
+  */
+  public int[] withinPolygon(List<Position> vertices, double limitingMag) {
+    if (vertices.size() < 3) {
+      throw new IllegalArgumentException("A polygon needs at least 3 vertices: " + vertices.size());
+    }
+    return query(new ConvexPolygon(vertices), limitingMag);
+  }
+
+  // PRIVATE
+
+  private static final int MAX_DEPTH = 7;
+
+  private final StarTable table;
+  private final int depth;
+  private final Mesh mesh;
+  /** Unit vectors for each row of the table. */
+  private final double[] x;
+  private final double[] y;
+  private final double[] z;
+  /** The rows of the table, grouped by trixel. Within a trixel, the rows are in ascending order. */
+  private final int[] rows;
+  /** The rows for trixel t are rows[start[t]] to rows[start[t+1] - 1]. */
+  private final int[] start;
+
+  private SkyIndex(StarTable table, int depth) {
+    this.table = table;
+    this.depth = depth;
+    this.mesh = new Mesh(depth);
+    int n = table.size();
+    x = new double[n];
+    y = new double[n];
+    z = new double[n];
+    int[] trixel = new int[n];
+    start = new int[8 * (1 << (2 * depth)) + 1];
+    for(int row = 0; row < n; ++row) {
+      x[row] = cos(table.dec(row)) * cos(table.ra(row));
+      y[row] = cos(table.dec(row)) * sin(table.ra(row));
+      z[row] = sin(table.dec(row));
+      trixel[row] = locate(x[row], y[row], z[row]);
+      ++start[trixel[row] + 1];
+    }
+    for(int t = 0; t < numTrixels(); ++t) {
+      start[t + 1] = start[t + 1] + start[t];
+    }
+    //counting sort, which retains the ascending order of rows within each trixel
+    rows = new int[n];
+    int[] next = Arrays.copyOf(start, numTrixels());
+    for(int row = 0; row < n; ++row) {
+      rows[next[trixel[row]]++] = row;
+    }
+  }
+
+  /**
+   The geometry of every triangle in the mesh, at every level, as primitives.
+   A node is a triangle at a given level. The children of node id at one level are the
+   nodes 4*id to 4*id + 3 at the next level.
+  */
+  private static final class Mesh {
+    Mesh(int depth) {
+      levelStart = new int[depth + 2];
+      for(int level = 0; level <= depth; ++level) {
+        levelStart[level + 1] = levelStart[level] + 8 * (1 << (2 * level));
+      }
+      int numNodes = levelStart[depth + 1];
+      vertices = new double[numNodes * 9];
+      normals = new double[numNodes * 9];
+      centers = new double[numNodes * 3];
+      radii = new double[numNodes];
+      double[][] roots = {
+        {1,0,0, 0,0,-1, 0,1,0}, {0,1,0, 0,0,-1, -1,0,0}, {-1,0,0, 0,0,-1, 0,-1,0}, {0,-1,0, 0,0,-1, 1,0,0},
+        {1,0,0, 0,0,1, 0,-1,0}, {0,-1,0, 0,0,1, -1,0,0}, {-1,0,0, 0,0,1, 0,1,0}, {0,1,0, 0,0,1, 1,0,0}
+      };
+      for(int id = 0; id < 8; ++id) {
+        System.arraycopy(roots[id], 0, vertices, id * 9, 9);
+        derive(id);
+      }
+      for(int level = 0; level < depth; ++level) {
+        for(int id = 0; id < levelStart[level + 1] - levelStart[level]; ++id) {
+          subdivide(levelStart[level] + id, levelStart[level + 1] + 4 * id);
+        }
+      }
+    }
+    int node(int level, int id) {
+      return levelStart[level] + id;
+    }
+    /** Counter-clockwise as seen from outside the sphere. */
+    final double[] vertices;
+    /** Inward normals of the 3 edges. */
+    final double[] normals;
+    /** The center of the smallest circle about the triangle's centroid that holds all 3 vertices. */
+    final double[] centers;
+    /** The radius of that circle, in radians. */
+    final double[] radii;
+    private final int[] levelStart;
+
+    /** The vertex order of the children defines their numbering. */
+    private void subdivide(int parent, int firstChild) {
+      double[] v = Arrays.copyOfRange(vertices, parent * 9, parent * 9 + 9);
+      double[] w0 = midpoint(v, 1, 2);
+      double[] w1 = midpoint(v, 0, 2);
+      double[] w2 = midpoint(v, 0, 1);
+      double[] v0 = {v[0], v[1], v[2]};
+      double[] v1 = {v[3], v[4], v[5]};
+      double[] v2 = {v[6], v[7], v[8]};
+      setTriangle(firstChild, v0, w2, w1);
+      setTriangle(firstChild + 1, v1, w0, w2);
+      setTriangle(firstChild + 2, v2, w1, w0);
+      setTriangle(firstChild + 3, w0, w1, w2);
+    }
+    private void setTriangle(int node, double[] a, double[] b, double[] c) {
+      System.arraycopy(a, 0, vertices, node * 9, 3);
+      System.arraycopy(b, 0, vertices, node * 9 + 3, 3);
+      System.arraycopy(c, 0, vertices, node * 9 + 6, 3);
+      derive(node);
+    }
+    private void derive(int node) {
+      int v = node * 9;
+      double cx = vertices[v] + vertices[v + 3] + vertices[v + 6];
+      double cy = vertices[v + 1] + vertices[v + 4] + vertices[v + 7];
+      double cz = vertices[v + 2] + vertices[v + 5] + vertices[v + 8];
+      double length = sqrt(cx * cx + cy * cy + cz * cz);
+      centers[node * 3] = cx / length;
+      centers[node * 3 + 1] = cy / length;
+      centers[node * 3 + 2] = cz / length;
+      double minCos = 1.0;
+      for(int i = 0; i < 3; ++i) {
+        int a = v + 3 * i;
+        int b = v + 3 * ((i + 1) % 3);
+        normals[a] = vertices[a + 1] * vertices[b + 2] - vertices[a + 2] * vertices[b + 1];
+        normals[a + 1] = vertices[a + 2] * vertices[b] - vertices[a] * vertices[b + 2];
+        normals[a + 2] = vertices[a] * vertices[b + 1] - vertices[a + 1] * vertices[b];
+        minCos = Math.min(minCos, (cx * vertices[a] + cy * vertices[a + 1] + cz * vertices[a + 2]) / length);
+      }
+      radii[node] = acos(minCos);
+    }
+    private static double[] midpoint(double[] v, int i, int j) {
+      double mx = v[3 * i] + v[3 * j];
+      double my = v[3 * i + 1] + v[3 * j + 1];
+      double mz = v[3 * i + 2] + v[3 * j + 2];
+      double length = sqrt(mx * mx + my * my + mz * mz);
+      return new double[] {mx / length, my / length, mz / length};
+    }
+  }
+
+  /**
+   The trixel containing the given unit vector.
+   At each level, take the triangle that the point is furthest inside of.
+   This means that every point lands somewhere, even with round-off along the edges.
+  */
+  private int locate(double px, double py, double pz) {
+    int id = best(0, 0, 8, px, py, pz);
+    for(int level = 1; level <= depth; ++level) {
+      id = best(level, 4 * id, 4, px, py, pz);
+    }
+    return id;
+  }
+
+  private int best(int level, int firstId, int count, double px, double py, double pz) {
+    int result = firstId;
+    double bestScore = -Double.MAX_VALUE;
+    for(int id = firstId; id < firstId + count; ++id) {
+      int n = mesh.node(level, id) * 9;
+      double score = Double.MAX_VALUE;
+      for(int i = 0; i < 9; i = i + 3) {
+        score = Math.min(score, mesh.normals[n + i] * px + mesh.normals[n + i + 1] * py + mesh.normals[n + i + 2] * pz);
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        result = id;
+      }
+    }
+    return result;
+  }
+
+  /** A region of the sky. */
+  private interface Region {
+    /** Exact test for a single point. */
+    boolean contains(double px, double py, double pz);
+    /** Conservative test: true only if the region certainly doesn't overlap the triangle. */
+    boolean isDisjointFrom(Mesh mesh, int node);
+    /** Conservative test: true only if the triangle is certainly inside the region. */
+    boolean containsAll(Mesh mesh, int node);
+  }
+
+  private int[] query(Region region, double limitingMag) {
+    int[] rowRange = table.rangeForMag(limitingMag);
+    Results results = new Results();
+    for(int root = 0; root < 8; ++root) {
+      descend(region, 0, root, rowRange, results);
+    }
+    int[] result = results.toArray();
+    Arrays.sort(result);
+    return result;
+  }
+
+  private void descend(Region region, int level, int id, int[] rowRange, Results results) {
+    int shift = 2 * (depth - level);
+    int fromTrixel = id << shift;
+    int toTrixel = (id + 1) << shift;
+    int node = mesh.node(level, id);
+    if (start[fromTrixel] == start[toTrixel] || region.isDisjointFrom(mesh, node)) {
+      return;
+    }
+    if (region.containsAll(mesh, node)) {
+      addTrixels(fromTrixel, toTrixel, null, rowRange, results);
+    }
+    else if (level == depth) {
+      addTrixels(fromTrixel, toTrixel, region, rowRange, results);
+    }
+    else {
+      for(int child = 0; child < 4; ++child) {
+        descend(region, level + 1, 4 * id + child, rowRange, results);
+      }
+    }
+  }
+
+  /** If the region is null, then all stars are added, without testing their position. */
+  private void addTrixels(int fromTrixel, int toTrixel, Region region, int[] rowRange, Results results) {
+    for(int t = fromTrixel; t < toTrixel; ++t) {
+      for(int i = start[t]; i < start[t + 1]; ++i) {
+        int row = rows[i];
+        if (row >= rowRange[1]) {
+          break; //the rest are fainter
+        }
+        if (row >= rowRange[0] && (region == null || region.contains(x[row], y[row], z[row]))) {
+          results.add(row);
+        }
+      }
+    }
+  }
+
+  /** Growable array of ints. */
+  private static final class Results {
+    void add(int row) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, items.length * 2);
+      }
+      items[size++] = row;
+    }
+    int[] toArray() {
+      return Arrays.copyOf(items, size);
+    }
+    private int[] items = new int[64];
+    private int size;
+  }
+
+  private static final class Cap implements Region {
+    Cap(Position center, double radius) {
+      this.cx = cos(center.δ) * cos(center.α);
+      this.cy = cos(center.δ) * sin(center.α);
+      this.cz = sin(center.δ);
+      this.radius = radius;
+      this.cosRadius = cos(radius);
+    }
+    @Override public boolean contains(double px, double py, double pz) {
+      return cx * px + cy * py + cz * pz >= cosRadius;
+    }
+    /** Compare with the circle about the triangle. */
+    @Override public boolean isDisjointFrom(Mesh mesh, int node) {
+      return separation(mesh, node) > radius + mesh.radii[node];
+    }
+    /** The circle about the triangle is inside the cap. Valid for caps of any size. */
+    @Override public boolean containsAll(Mesh mesh, int node) {
+      return separation(mesh, node) + mesh.radii[node] <= radius;
+    }
+    private final double cx, cy, cz;
+    private final double radius;
+    private final double cosRadius;
+    private double separation(Mesh mesh, int node) {
+      int c = node * 3;
+      double cosθ = cx * mesh.centers[c] + cy * mesh.centers[c + 1] + cz * mesh.centers[c + 2];
+      return acos(Math.max(-1.0, Math.min(1.0, cosθ)));
+    }
+  }
+
+  /** Each side is a great circle. The inside of the polygon is on the positive side of the normal of every side. */
+  private static final class ConvexPolygon implements Region {
+    ConvexPolygon(List<Position> vertices) {
+      int n = vertices.size();
+      double[] points = new double[3 * n];
+      double sx = 0, sy = 0, sz = 0;
+      for(int i = 0; i < n; ++i) {
+        Position vertex = vertices.get(i);
+        points[3 * i] = cos(vertex.δ) * cos(vertex.α);
+        points[3 * i + 1] = cos(vertex.δ) * sin(vertex.α);
+        points[3 * i + 2] = sin(vertex.δ);
+        sx = sx + points[3 * i];
+        sy = sy + points[3 * i + 1];
+        sz = sz + points[3 * i + 2];
+      }
+      normals = new double[3 * n];
+      for(int i = 0; i < n; ++i) {
+        int a = 3 * i;
+        int b = 3 * ((i + 1) % n);
+        normals[a] = points[a + 1] * points[b + 2] - points[a + 2] * points[b + 1];
+        normals[a + 1] = points[a + 2] * points[b] - points[a] * points[b + 2];
+        normals[a + 2] = points[a] * points[b + 1] - points[a + 1] * points[b];
+      }
+      //make the normals point inwards, for either direction of the vertices
+      if (normals[0] * sx + normals[1] * sy + normals[2] * sz < 0) {
+        for(int i = 0; i < normals.length; ++i) {
+          normals[i] = -normals[i];
+        }
+      }
+    }
+    @Override public boolean contains(double px, double py, double pz) {
+      boolean result = true;
+      for(int i = 0; i < normals.length && result; i = i + 3) {
+        result = normals[i] * px + normals[i + 1] * py + normals[i + 2] * pz >= 0;
+      }
+      return result;
+    }
+    /** All 3 vertices outside the same side means the whole triangle is outside, since each side of a great circle is convex. */
+    @Override public boolean isDisjointFrom(Mesh mesh, int node) {
+      boolean result = false;
+      int v = node * 9;
+      for(int i = 0; i < normals.length && !result; i = i + 3) {
+        result = true;
+        for(int j = v; j < v + 9; j = j + 3) {
+          result = result && (normals[i] * mesh.vertices[j] + normals[i + 1] * mesh.vertices[j + 1] + normals[i + 2] * mesh.vertices[j + 2] < 0);
+        }
+      }
+      return result;
+    }
+    /** The polygon and the triangle are both convex. */
+    @Override public boolean containsAll(Mesh mesh, int node) {
+      int v = node * 9;
+      return
+        contains(mesh.vertices[v], mesh.vertices[v + 1], mesh.vertices[v + 2]) &&
+        contains(mesh.vertices[v + 3], mesh.vertices[v + 4], mesh.vertices[v + 5]) &&
+        contains(mesh.vertices[v + 6], mesh.vertices[v + 7], mesh.vertices[v + 8])
+      ;
+    }
+    private final double[] normals;
+  }
+}
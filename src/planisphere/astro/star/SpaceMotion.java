@@ -0,0 +1,139 @@
+package planisphere.astro.star;
+
+import static java.lang.Math.asin;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static planisphere.astro.time.AstroUtil.DAYS_PER_JULIAN_YEAR;
+import static planisphere.astro.time.AstroUtil.KM_PER_AU;
+import static planisphere.astro.time.AstroUtil.SECONDS_PER_DAY;
+import static planisphere.math.Maths.atan3;
+
+import planisphere.math.Maths;
+
+/**
+ The space motion of each star in a table, computed once, for applying proper motion to many dates.
+
+ <P>{@link ProperMotion} starts from the catalog data each time: the rotation from (ra, dec) to
+ rectangular coordinates, and the conversion of proper motion and radial velocity to a velocity.
+ Those depend only on the star, not on the date. Here, they're done once per star, when this object is built.
+ For each star, this object holds its position vector u0 (AU) at the catalog epoch, and its velocity vector udot0 (AU/day).
+ The position at any date is then:
+ <pre>u0 + udot0 * (jd - J1991.25)</pre>
+ followed by the conversion back to (ra, dec).
+
+ <P>As in {@link ProperMotion}, stars without parallax or radial velocity use the classical 2D proper motion.
+ The results are identical to those of {@link ProperMotion}.
+ The positions are J2000 equatorial positions, with no precession applied.
+
+ <P>Immutable. The rows are the rows of the table passed to {@link #of(StarTable)}.
+*/
+public final class SpaceMotion {
+
+  /** Compute the space motion of every star in the table, at the catalog epoch (J1991.25). */
+  public static SpaceMotion of(StarTable table) {
+    SpaceMotion result = new SpaceMotion(table);
+    for(int row = 0; row < table.size(); ++row) {
+      result.init(row);
+    }
+    return result;
+  }
+
+  /** The number of stars. */
+  public int size() {
+    return table.size();
+  }
+
+  /** True if the star has a parallax and a radial velocity. If false, 2D proper motion is used. */
+  public boolean is3D(int row) {
+    return is3D[row];
+  }
+
+  /**
+   Write the J2000 position of a star at the given date into the given position object.
+   No objects are created.
+  */
+  public void positionAt(int row, double jd, Position pos) {
+    double days = jd - ProperMotion.J1991_25;
+    if (is3D[row]) {
+      double x = u0x[row] + days * udot0x[row];
+      double y = u0y[row] + days * udot0y[row];
+      double z = u0z[row] + days * udot0z[row];
+      pos.α = atan3(y, x);
+      pos.δ = asin(z / Math.sqrt(x*x + y*y + z*z));
+    }
+    else {
+      double years = days / DAYS_PER_JULIAN_YEAR;
+      double Δα = (table.properMotionRa(row) * years) / cosDec[row]; //arcsecs
+      double Δδ = table.properMotionDec(row) * years; //arcsecs
+      pos.α = table.ra(row) + Maths.degToRads(Δα/3600.0);
+      pos.δ = table.dec(row) + Maths.degToRads(Δδ/3600.0);
+    }
+  }
+
+  /**
+   The J2000 positions of all stars at the given date.
+   @param ra output, one per row
+   @param dec output, one per row
+  */
+  public void positionsAt(double jd, double[] ra, double[] dec) {
+    Position pos = new Position();
+    for(int row = 0; row < size(); ++row) {
+      positionAt(row, jd, pos);
+      ra[row] = pos.α;
+      dec[row] = pos.δ;
+    }
+  }
+
+  // PRIVATE
+
+  private final StarTable table;
+  private final boolean[] is3D;
+  /** Position at the catalog epoch, in AU. */
+  private final double[] u0x, u0y, u0z;
+  /** Velocity, in AU per day. */
+  private final double[] udot0x, udot0y, udot0z;
+  /** Only for 2D rows. */
+  private final double[] cosDec;
+
+  private SpaceMotion(StarTable table) {
+    int n = table.size();
+    this.table = table;
+    this.is3D = new boolean[n];
+    this.u0x = new double[n];
+    this.u0y = new double[n];
+    this.u0z = new double[n];
+    this.udot0x = new double[n];
+    this.udot0y = new double[n];
+    this.udot0z = new double[n];
+    this.cosDec = new double[n];
+  }
+
+  /** The same arithmetic as ProperMotion, in the same order. */
+  private void init(int row) {
+    double α = table.ra(row);
+    double δ = table.dec(row);
+    double parallax = table.parallax(row);
+    double radialVelocity = table.radialVelocity(row);
+    is3D[row] = parallax > 0 && !Double.isNaN(radialVelocity);
+    if (is3D[row]) {
+      double pRads = Maths.arcsecToRads(parallax); //rads
+      double r = 1/pRads; //AU
+      double sinα = sin(α);
+      double cosα = cos(α);
+      double sinδ = sin(δ);
+      double cosδ = cos(δ);
+      u0x[row] = r * cosδ * cosα;
+      u0y[row] = r * cosδ * sinα;
+      u0z[row] = r * sinδ;
+      double pmRA = Maths.arcsecToRads(table.properMotionRa(row)) / (DAYS_PER_JULIAN_YEAR * pRads);
+      double pmDEC = Maths.arcsecToRads(table.properMotionDec(row))/ (DAYS_PER_JULIAN_YEAR * pRads);
+      double rDot = (SECONDS_PER_DAY * radialVelocity)/KM_PER_AU; //from km/s
+      udot0x[row] = -sinα * pmRA + (-cosα*sinδ) * pmDEC + (cosα*cosδ) * rDot;
+      udot0y[row] = cosα * pmRA + (-sinα*sinδ) * pmDEC + (sinα*cosδ) * rDot;
+      udot0z[row] = cosδ * pmDEC + sinδ * rDot;
+    }
+    else {
+      cosDec[row] = Math.cos(δ);
+    }
+  }
+}
@@ -1,38 +1,44 @@
 package planisphere.astro.star;
 
 import static planisphere.util.LogUtil.log;
+import static planisphere.util.LogUtil.warn;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import planisphere.astro.precession.LongTermPrecession;
+import planisphere.astro.precession.PrecessionFrame;
 import planisphere.astro.time.AstroUtil;
 import planisphere.config.Config;
 import planisphere.config.Constants;
 import planisphere.math.Maths;
-import planisphere.util.DataFileReader;
 
 /** 
  Open-source bright star catalog, based on Hipparcos data.
  <P>Source: <a href='https://github.com/johanley/star-catalog'>link</a>
  
- <P>A subset of catalog data is read into memory. As a side-effect for developer convenience, the data
- used by this project is dumped into a text file. (See logging output for the file's location.)
+ <P>A subset of catalog data is read into memory. For developer convenience, the data
+ used by this project can be dumped into a text file, along with statistics about proper motion. 
+ See {@link StarCatalogDiagnostics}. (See logging output for the file's location.)
  
  <P>WARNING: the IDs used here need to match the IDs used by the constellation lines and other items.
 */
 public final class StarCatalog {
 
+  /** The diagnostics are as configured by {@link StarCatalogDiagnostics#from(Config)}. */
   public StarCatalog(Config config) {
+    this(config, StarCatalogDiagnostics.from(config));
+  }
+  
+  /** Send the diagnostics somewhere else. */
+  public StarCatalog(Config config, StarCatalogDiagnostics diagnostics) {
     this.config = config;
+    this.diagnostics = diagnostics;
   }
   
   /**
@@ -46,7 +52,7 @@ public final class StarCatalog {
     <li>add proper names to stars ('Vega', for instance)
    </ul>
    
-   <P>As a side effects, this method saves the catalog data used here as a file. 
+   <P>If diagnostics are on, this method also saves the catalog data used here, in the background. 
    This is meant for developer convenience, to easily examine the data.
    
    <P>If the precessionJd is null, then proper motion and precession are not applied at all.   
@@ -55,14 +61,14 @@ public final class StarCatalog {
     readInRawCatalogData();
     if (precessionJd != null) {
       log("Applying proper motion / precession to the star catalog. Year: " + config.year());
-      applyProperMotion(precessionJd);
-      applyPrecession(precessionJd);
+      applyProperMotionAndPrecession(precessionJd);
     }
     else {
       log("Not applying proper motion / precession or proper motion. Year: " + config.year());
     }
     addProperNamesToStars();
-    saveToIntermediateFile();
+    lookup = StarIndex.of(table);
+    saveDiagnostics();
     scanForMissingItems();
   }
   
@@ -70,58 +76,84 @@ public final class StarCatalog {
    Filter the whole catalog by a limiting magnitude.
    In this project, it's not prudent to filter by geometry, a range of declination, say. That's because there's 
    a high risk of leaving things out: precession and proper motion changes the relative positions a great deal over 
-   long time scales. 
+   long time scales.
+   
+   <P>The catalog is sorted by magnitude, so the stars are found with a binary search. 
+   The result is already in the order in which stars are drawn. 
+   Returns new star objects, which the caller is free to change.  
   */
   public List<Star> filterByMag(Double limitingMag){
-    List<Star> result = new ArrayList<>();
-    for (Star star : stars) {
-      if (Maths.inRange(-5.0, limitingMag, star.MAG)) {
-        result.add(star);
-        //there's no real need to make a copy of the star object, since the data is treated as read-only
-      }
-    }
-    return result;
+    return table.filterByMag(limitingMag).stars();
   }
 
-  /** Return all of the stars in the catalog, with no filter. */
+  /** 
+   Return all of the stars in the catalog, with no filter, in order of increasing magnitude. 
+   Returns new star objects, which the caller is free to change. 
+  */
   public List<Star> all(){
-    return Collections.unmodifiableList(stars);
+    return table.stars();
   }
   
-  public Optional<Star> findByProperName(String properName) {
-    Optional<Star> result = Optional.empty();
-    for (Star star : stars) {
-      if (star.PROPER_NAME.equalsIgnoreCase(properName)) {
-        result = Optional.of(star);
-      }
+  /** 
+   The catalog data as parallel columns of primitives. 
+   The table is immutable, and can be shared between threads. 
+  */
+  public StarTable table() {
+    return table;
+  }
+  
+  /** 
+   Indexes for finding stars by identifier and by name, in constant time. 
+   The rows refer to {@link #table()}. 
+  */
+  public StarIndex index() {
+    return lookup;
+  }
+  
+  /** 
+   Spatial index for finding the stars in a region of the sky, without scanning the whole catalog.
+   Built on the positions after proper motion and precession. The rows refer to {@link #table()}. 
+   Built when first needed, since most charts don't use it. 
+  */
+  public synchronized SkyIndex skyIndex() {
+    if (skyIndex == null) {
+      skyIndex = SkyIndex.of(table);
     }
-    return result;
+    return skyIndex;
   }
   
+  /** Find a star by its proper name ('Vega', for instance), ignoring case. Returns a new object. */
+  public Optional<Star> findByProperName(String properName) {
+    return starFor(lookup.rowOfProperName(properName));
+  }
+  
+  /** Find a star by its Bayer or Flamsteed designation, ignoring case. Returns a new object. */
   public Optional<Star> findByName(String name) {
-    Optional<Star> result = Optional.empty();
-    for (Star star : stars) {
-      if (star.NAME.equalsIgnoreCase(name)) {
-        result = Optional.of(star);
-      }
-    }
-    return result;
+    return starFor(lookup.rowOfName(name));
+  }
+  
+  /** Find a star by its identifier in the underlying catalog. Returns a new object. */
+  public Optional<Star> findByIndex(int index) {
+    return starFor(lookup.rowOfIndex(index));
   }
   
   // PRIVATE 
 
   private Config config;
-  private List<Star> stars = new ArrayList<>();
+  private final StarCatalogDiagnostics diagnostics;
+  private StarTable table;
+  private StarIndex lookup;
+  /** Built lazily from the table. */
+  private SkyIndex skyIndex;
+  
+  private Optional<Star> starFor(OptionalInt row) {
+    return row.isPresent() ? Optional.of(table.star(row.getAsInt())) : Optional.empty();
+  }
   
   private void readInRawCatalogData() {
-    log("Read in raw catalog.");
-    DataFileReader reader = new DataFileReader();
-    List<String> lines = reader.readFile(this.getClass(), "os-bright-star-catalog-hip.utf8");
-    int lineCount = 0;
-    Star star = null;
-    for(String line : lines) {
-      ++lineCount;
-      star = processLine(line);
+    List<Star> rawStars = readRawCatalog();
+    List<Star> stars = new ArrayList<>();
+    for(Star star : rawStars) {
       if (star.INDEX.equals(Constants.POLARIS) && config.discardPolaris()) {
         log("Discarding Polaris from star catalog: " + Constants.POLARIS);
       }
@@ -129,8 +161,42 @@ public final class StarCatalog {
         stars.add(star);
       }
     }
-    log("Read this many lines: " + lineCount);
-    log("Using this number of stars from catalog: " + stars.size());
+    table = StarTable.of(stars);
+    log("Read this many records: " + rawStars.size());
+    log("Using this number of stars from catalog: " + table.size());
+  }
+  
+  /** Prefer the binary snapshot, if present. The text file is the fallback. See {@link StarCatalogSnapshot}. */
+  private List<Star> readRawCatalog() {
+    List<Star> result = null;
+    Optional<Path> snapshot = StarCatalogSnapshot.location();
+    if (snapshot.isPresent()) {
+      log("Read in raw catalog from the snapshot " + snapshot.get());
+      try {
+        result = new StarCatalogSnapshot().read(snapshot.get());
+      }
+      catch(IOException ex) {
+        warn("Can't read the star catalog snapshot. Falling back to the text file. " + ex.getMessage());
+      }
+    }
+    if (result == null) {
+      result = readRawCatalogText();
+    }
+    return result;
+  }
+  
+  /** 
+   The raw catalog data, parsed from the text file. No stars are discarded. 
+   The stars are in order of increasing magnitude. See {@link StarCatalogStream}.
+  */
+  List<Star> readRawCatalogText() {
+    log("Read in raw catalog.");
+    try (ReadableByteChannel channel = StarCatalogStream.bundledCatalog()){
+      return new StarCatalogStream().read(channel).stars();
+    }
+    catch(IOException ex) {
+      throw new RuntimeException("Can't read the star catalog. " + ex.getMessage(), ex);
+    }
   }
   
   private void addProperNamesToStars() {
@@ -138,8 +204,10 @@ public final class StarCatalog {
     StarName starName = new StarName();
     starName.readData();
     int count = 0;
-    for (Star star : stars) {
-      String name = star.NAME; //can be blank
+    String[] properNames = new String[table.size()];
+    for (int row = 0; row < table.size(); ++row) {
+      properNames[row] = table.properName(row);
+      String name = table.name(row); //can be blank
       if (name.length() > 0) {
         int firstBlank = name.indexOf(" ");
         String constellationAbbr = name.substring(firstBlank).trim();
@@ -147,177 +215,115 @@ public final class StarCatalog {
         String properName = starName.nameFor(constellationAbbr, bayerOrFlamsteed);
         if (properName.length() > 0) {
           ++count;
-          star.PROPER_NAME = properName;
+          properNames[row] = properName;
         }
       }
     }
+    table = table.withProperNames(properNames);
     log("Added " + count + " proper names for stars.");
   }
 
-  private void saveToIntermediateFile() throws IOException {
-    log("Save to an intermediate file. Only needed for dev/debugging purposes.");
-    String outputFileName = "stars.utf8"; 
-    finalOutput(stars, outputFileName);
+  /** The stars are formatted and written in the background. The table is immutable. */
+  private void saveDiagnostics() {
+    if (diagnostics.isOn()) {
+      StarTable stars = table;
+      diagnostics.save("stars", () -> starLines(stars));
+    }
   }
   
-  private Star processLine(String line){
-    Star result = new Star();
-    result.INDEX = sliceInt(line, 1, 6);
-    
-    //prefer bayer to flamsteed
-    result.NAME = slice(line, 201, 7); //possibly empty
-    if (isEmpty(result.NAME)){
-      result.NAME = slice(line, 209, 7); //possibly empty
+  private static List<String> starLines(StarTable stars) {
+    List<String> result = new ArrayList<>();
+    result.add("index,constellation,right_ascension,declination,magnitude,designation,proper_name,pm_ra,pm_dec,parallax,radial_velocity,hd");
+    for(int row = 0; row < stars.size(); ++row) {
+      result.add(stars.star(row).toString());
     }
-    
-    result.MAG = Double.valueOf(slice(line, 148, 5)); // Vmag, possible leading minus sign; that's ok
-    
-    result.RA = sliceDbl(line, 45, 12); // rads
-    result.DEC = sliceDbl(line, 59, 13); // rads
-    
-    result.PROPER_MOTION_RA = masToArcseconds(line, 81, 8); // (arcsec per yr) * cos(dec) 
-    result.PROPER_MOTION_DEC = masToArcseconds(line, 90, 8); // arcsec per yr 
-    
-    result.PARALLAX = masToArcseconds(line, 73, 7); // arcseconds
-    result.RADIAL_VELOCITY = optionalDouble(line, 99, 7); //km per sec
-    
-    result.HD_DESIGNATION = slice(line, 189, 6);
-
+    result.add("");
     return result;
   }
   
-  
-  private String slice(String line, int start /*1-based*/, int numchars){
-    return line.substring(start-1, start-1+numchars).trim();
-  }
-  
-  private Integer sliceInt(String line, int start, int numchars){
-    return Integer.valueOf(slice(line, start, numchars));
-  }
-  
-  private Double sliceDbl(String line, int start, int numchars){
-    return Double.valueOf(slice(line, start, numchars));
-  }
-  
-  private double masToArcseconds(String line, int start, int numchars) {
-    return sliceDbl(line, start, numchars) / 1000.0D;  
+  /** 
+   Proper motion is applied first, then precession. 
+   The work is split across threads according to {@link Config#starCatalogParallelism()}.
+  */
+  private void applyProperMotionAndPrecession(Double jd) {
+    log("Applying proper motion from " + ProperMotion.J1991_25 + " to the target year " + config.year());
+    log("Applying precession from J2000 to target JD: " + jd);
+    int parallelism = parallelism();
+    if (parallelism > 1) {
+      log("Parallelism: " + parallelism);
+    }
+    ProperMotion properMotion = new ProperMotion(ProperMotion.J1991_25, jd);
+    PrecessionFrame precession = new LongTermPrecession().frame(jd);
+    StarTransform transform = new StarTransform(table, properMotion, precession, diagnostics.isOn());
+    ProperMotionStats stats = transform.run(parallelism);
+    StarTable atCatalogEpoch = table;
+    table = table.withPositions(transform.ra(), transform.dec());
+    log("Finished applying proper motion and precession.");
+    log("  Max proper motion : " + maxProperMotion(stats, atCatalogEpoch));
+    log("  Number of stars that whose proper motion exceeded 1 degree: " + stats.countAboveOneDegree());
+    if (diagnostics.isOn()) {
+      diagnostics.save("proper-motion", () -> statsLines(stats, atCatalogEpoch));
+    }
   }
   
-  private boolean isEmpty(String text){
-    return text == null || text.trim().length() == 0; 
+  /** 0 in the config means to use all available processors. */
+  private int parallelism() {
+    int result = config.starCatalogParallelism();
+    if (result == 0) {
+      result = Runtime.getRuntime().availableProcessors();
+    }
+    return result;
   }
   
-  private void finalOutput(List<Star> brightstars, String filename) throws FileNotFoundException, IOException {
-    File out = new File(filename);
-    log("Writing to file. The file is for info/debugging purposes only. File name: " + out.getCanonicalPath());
-    FileOutputStream fos = new FileOutputStream(out);
-    BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fos, DataFileReader.ENCODING));
-    writer.write("index,constellation,right_ascension,declination,magnitude,designation,proper_name,pm_ra,pm_dec,parallax,radial_velocity,hd");
-    writer.newLine();
-    for(Star nearbystar: brightstars){
-      writer.write(nearbystar.toString());
-      writer.newLine();
-    }
-    writer.newLine();
-    writer.close();    
+  /** The table is only used for describing the star. */
+  private static String maxProperMotion(ProperMotionStats stats, StarTable table) {
+    double maxRads = Maths.degToRads(stats.maxArcSecs() / 3600.0);
+    String fastest = stats.fastest() == -1 ? "(no star moved)" : describe(stats.fastest(), table);
+    return AstroUtil.radsToDegreeString(maxRads) + " " + fastest;
   }
   
-  private void applyProperMotion(Double jd) {
-    log("Applying proper motion from " + ProperMotion.J1991_25 + " to the target year " + config.year());
-    List<Stat> stats = new ArrayList<>();
-    Star fastest = null;
-    ProperMotion properMotion = new ProperMotion(ProperMotion.J1991_25, jd);
-    int countAboveOneDegree = 0;
-    double maxArcSecs = 0.0;
-    for(Star star : stars) {
-      double val = properMotion.applyTo(star);
-      if (val > maxArcSecs) {
-        maxArcSecs = val;
-        fastest = star;
-      }
-      if (val > 3600.0) {
-        ++countAboveOneDegree;
-      }
-      stats.add(new Stat(star, val));
+  /** The summary is in the log. The table is only used for describing the stars. */
+  private static List<String> statsLines(ProperMotionStats stats, StarTable table) {
+    List<String> result = new ArrayList<>();
+    result.add("Top " + ProperMotionStats.NUM_TOP + " proper motions: ");
+    for(ProperMotionStats.Stat stat : stats.top()) {
+      result.add(statLine(stat, table));
     }
-    Collections.sort(stats);
-    double maxRads = Maths.degToRads(maxArcSecs / 3600.0);
-    log("Finished applying proper motion.");
-    log("  Max proper motion : " + AstroUtil.radsToDegreeString(maxRads) + " " + fastest.NAME + " mag " + fastest.MAG + " HD:" + fastest.HD_DESIGNATION);
-    log("  Number of stars that whose proper motion exceeded 1 degree: " + countAboveOneDegree);
-    log("  Top 25 proper motions: ");
-    for(int count = 0; count < 25; ++count) {
-      Star s = stats.get(count).star;
-      String pm = AstroUtil.radsToDegreeString(Maths.arcsecToRads(stats.get(count).properMotion));
-      log("    " + pm + " " + s.NAME + " mag " + s.MAG + " HD:" + s.HD_DESIGNATION);
+    result.add("Proper motions for stars of magnitude <= " + ProperMotionStats.BRIGHT_MAG + ": ");
+    for(ProperMotionStats.Stat stat : stats.bright()) {
+      result.add(statLine(stat, table));
     }
-    log("  Proper motions for stars of magnitude <= 1.5: ");
-    for(Stat stat : stats) {
-      if (stat.star.getMagnitude() <= 1.5) {
-        String pm = AstroUtil.radsToDegreeString(Maths.arcsecToRads(stat.properMotion));
-        Star s = stat.star;
-        log("    " + pm + " " + s.NAME + " mag " + s.MAG + " HD:" + s.HD_DESIGNATION);
-      }
-    }
-
+    return result;
   }
   
-  private static final class Stat implements Comparable<Stat>{
-    Stat(Star star, double pm){
-      this.star = star;
-      this.properMotion = pm;
-    }
-    Star star;
-    /** Arcseconds. Proper motion of the star from catalog epoch to the target epoch. */
-    double properMotion;
-    /** Ascending order. */
-    @Override public int compareTo(Stat that) {
-      return that.properMotion >= this.properMotion ? 1 : -1;
-    }
+  private static String statLine(ProperMotionStats.Stat stat, StarTable table) {
+    String pm = AstroUtil.radsToDegreeString(Maths.arcsecToRads(stat.properMotion));
+    return "  " + pm + " " + describe(stat.row, table);
   }
   
-  private void applyPrecession(Double precessionJd) {
-    log("Applying precession from J2000 to target JD: " + precessionJd);
-    LongTermPrecession precession = new LongTermPrecession();
-    for(Star star : stars) {
-      Position newPos = precession.apply(star.position(), precessionJd);
-      star.RA = newPos.α;
-      star.DEC = newPos.δ;
-    }
-    log("Finished applying precession.");
+  private static String describe(int row, StarTable table) {
+    return table.name(row) + " mag " + table.mag(row) + " HD:" + table.hdDesignation(row);
   }
   
   private void scanForMissingItems() {
     int countParallax = 0;
     int countRadialVelocity = 0;
     int countHD = 0; 
-    for(Star star : stars) {
-      countParallax = countParallax + missing(star.PARALLAX);
-      countRadialVelocity = countRadialVelocity + missing(star.RADIAL_VELOCITY);
-      countHD = countHD + missing(star.HD_DESIGNATION);
+    for(int row = 0; row < table.size(); ++row) {
+      countParallax = countParallax + missing(table.parallax(row));
+      countRadialVelocity = countRadialVelocity + missing(table.radialVelocity(row));
+      countHD = countHD + missing(table.hdDesignation(row));
     }
     log("Num stars missing parallax: " + countParallax);
     log("Num stars missing radial velocity: " + countRadialVelocity);
     log("Num stars missing HD: " + countHD);
   }
   
-  private int missing(Object thing) { 
-    return thing == null ? 1 : 0;
+  private int missing(double thing) { 
+    return Double.isNaN(thing) ? 1 : 0;
   }
   
   private int missing(String thing) { 
     return (thing == null || thing.trim().length() == 0) ? 1 : 0;
   }
-
-  
-  private Double optionalDouble(String line, int start, int numchars) {
-    Double result = null;
-    if (line.length() >= start + numchars) {
-      String text = line.substring(start-1, start-1+numchars).trim();
-      if (text != null && text.trim().length() > 0) {
-        result = Double.valueOf(text);
-      }
-    }
-    return result;
-  }
 }
\ No newline at end of file
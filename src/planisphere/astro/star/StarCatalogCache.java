@@ -0,0 +1,207 @@
+package planisphere.astro.star;
+
+import static planisphere.util.LogUtil.log;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import planisphere.config.Config;
+
+/**
+ Process-wide cache of star catalogs that have already been transformed to a given date.
+
+ <P>Applying proper motion and precession to the whole catalog is the same work for every chart
+ made for the same year. When many charts are generated in the same process (for many locations,
+ for instance), the work is done once, not once per chart.
+
+ <P>The key is the date of the transformation, whether or not Polaris is discarded, the limiting magnitude, 
+ and the directory for the diagnostics. The diagnostics are only written when an entry is built. 
+ Including their directory in the key means that each setting gets its own diagnostics, 
+ instead of silently following the setting of the first chart.
+ The cached data is immutable. Each call to {@link Entry#stars()} returns new star objects,
+ which the caller is free to change.
+
+ <P>The cache holds at most a fixed number of entries, and discards the least recently used one when full.
+ The default size is {@value #DEFAULT_MAX_SIZE}. To use a different size, use the command line setting:
+
+ {@code -DplanisphereStarCatalogCacheSize=20}
+
+ <P>This class is thread-safe. When two threads ask for the same missing entry at the same time,
+ only one of them builds it; the other waits for the result.
+*/
+public final class StarCatalogCache {
+
+  /** Default maximum number of entries - {@value}. */
+  public static final int DEFAULT_MAX_SIZE = 8;
+
+  /** The single instance for this process. */
+  public static StarCatalogCache instance() {
+    return INSTANCE;
+  }
+
+  /** 
+   Star catalog data transformed to a given date, and filtered by magnitude. Immutable.
+   The underlying {@link StarCatalog} is not exposed, since it can be generated again.  
+  */
+  public static final class Entry {
+    /** The whole catalog, unfiltered. */
+    public StarTable all() { return catalog.table(); }
+    /** The stars in the catalog that pass the magnitude filter. */
+    public StarTable table() { return table; }
+    /** New star objects for the stars that pass the magnitude filter, in order of increasing magnitude. */
+    public List<Star> stars() { return table.stars(); }
+    /** See {@link StarCatalog#index()}. The rows refer to {@link #all()}. */
+    public StarIndex index() { return catalog.index(); }
+    /** See {@link StarCatalog#skyIndex()}. The rows refer to {@link #all()}. */
+    public SkyIndex skyIndex() { return catalog.skyIndex(); }
+    /** See {@link StarCatalog#findByProperName(String)}. Returns a new object. */
+    public Optional<Star> findByProperName(String properName) { return catalog.findByProperName(properName); }
+    /** See {@link StarCatalog#findByName(String)}. Returns a new object. */
+    public Optional<Star> findByName(String name) { return catalog.findByName(name); }
+    /** See {@link StarCatalog#findByIndex(int)}. Returns a new object. */
+    public Optional<Star> findByIndex(int index) { return catalog.findByIndex(index); }
+    private Entry(StarCatalog catalog, double limitingMag) {
+      this.catalog = catalog;
+      this.table = catalog.table().filterByMag(limitingMag);
+    }
+    private final StarCatalog catalog;
+    private final StarTable table;
+  }
+
+  /**
+   Return the star catalog data for the given date, building it if necessary.
+   @param config the source of the discard-Polaris setting, and of the diagnostics
+   @param jd the date to which proper motion and precession are applied; if null, they are not applied at all.
+   See {@link StarCatalog#generateIntermediateStarCatalog(Double)}.
+   @param limitingMag the faintest stars to be included in {@link Entry#table()}
+  */
+  public Entry lookup(Config config, Double jd, double limitingMag) {
+    Key key = new Key(jd, config.discardPolaris(), limitingMag, config.starDiagnosticsDir());
+    FutureTask<Entry> task = null;
+    boolean isNew = false;
+    synchronized (entries) {
+      task = entries.get(key);
+      if (task == null) {
+        task = new FutureTask<>(() -> build(config, jd, limitingMag));
+        entries.put(key, task);
+        isNew = true;
+      }
+    }
+    if (isNew) {
+      misses.incrementAndGet();
+      task.run();
+    }
+    else {
+      hits.incrementAndGet();
+      log("Star catalog cache hit: " + key);
+    }
+    return resultOf(key, task);
+  }
+
+  /** The number of lookups that found an existing entry. */
+  public long hits() { return hits.get(); }
+
+  /** The number of lookups that needed to build a new entry. */
+  public long misses() { return misses.get(); }
+
+  /** The number of entries currently in the cache. */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /** Remove all entries. The counters are not reset. */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  @Override public String toString() {
+    return "Star catalog cache size:" + size() + " hits:" + hits() + " misses:" + misses();
+  }
+
+  // PRIVATE
+
+  private static final StarCatalogCache INSTANCE = new StarCatalogCache(maxSize());
+
+  private final Map<Key, FutureTask<Entry>> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  private StarCatalogCache(int maxSize) {
+    this.entries = new LinkedHashMap<Key, FutureTask<Entry>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      @Override protected boolean removeEldestEntry(Map.Entry<Key, FutureTask<Entry>> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  private static int maxSize() {
+    String override = System.getProperty("planisphereStarCatalogCacheSize");
+    int result = override == null ? DEFAULT_MAX_SIZE : Integer.valueOf(override.trim());
+    if (result < 1) {
+      throw new IllegalArgumentException("Star catalog cache size must be at least 1: " + result);
+    }
+    return result;
+  }
+
+  private static final class Key {
+    Key(Double jd, Boolean discardPolaris, double limitingMag, String diagnosticsDir){
+      this.jd = jd;
+      this.discardPolaris = discardPolaris;
+      this.limitingMag = limitingMag;
+      this.diagnosticsDir = diagnosticsDir;
+    }
+    private final Double jd;
+    private final Boolean discardPolaris;
+    private final double limitingMag;
+    private final String diagnosticsDir;
+    @Override public boolean equals(Object object) {
+      boolean result = false;
+      if (object instanceof Key) {
+        Key that = (Key)object;
+        result = Objects.equals(this.jd, that.jd) && Objects.equals(this.discardPolaris, that.discardPolaris) &&
+          Double.compare(this.limitingMag, that.limitingMag) == 0 && Objects.equals(this.diagnosticsDir, that.diagnosticsDir);
+      }
+      return result;
+    }
+    @Override public int hashCode() {
+      return Objects.hash(jd, discardPolaris, limitingMag, diagnosticsDir);
+    }
+    @Override public String toString() {
+      return "jd:" + jd + " discard-Polaris:" + discardPolaris + " limiting-mag:" + limitingMag + " diagnostics:" + diagnosticsDir;
+    }
+  }
+
+  private Entry build(Config config, Double jd, double limitingMag) throws Exception {
+    StarCatalog catalog = new StarCatalog(config);
+    catalog.generateIntermediateStarCatalog(jd);
+    return new Entry(catalog, limitingMag);
+  }
+
+  /** A failed build is removed from the cache, so that a later lookup can try again. */
+  private Entry resultOf(Key key, FutureTask<Entry> task) {
+    try {
+      return task.get();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for the star catalog: " + key, ex);
+    }
+    catch (ExecutionException ex) {
+      synchronized (entries) {
+        entries.remove(key, task);
+      }
+      throw new RuntimeException("Can't build the star catalog: " + key, ex.getCause());
+    }
+  }
+}
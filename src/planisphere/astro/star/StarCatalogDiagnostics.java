@@ -0,0 +1,38 @@
+package planisphere.astro.star;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import planisphere.config.Config;
+
+/**
+ Where diagnostic output about the star catalog is sent: the stars used, and the proper motion applied to them.
+
+ <P>This output is only for developers. When it's off, the diagnostics aren't even calculated.
+ See {@link Config#starDiagnosticsDir()}.
+*/
+public interface StarCatalogDiagnostics {
+
+  /** Discard all diagnostics. */
+  static final StarCatalogDiagnostics NONE = new StarCatalogDiagnostics() {
+    @Override public boolean isOn() { return false; }
+    @Override public void save(String name, Supplier<List<String>> lines) { }
+  };
+
+  /** Diagnostics as configured: {@link #NONE} if the directory is blank, else files written in the background. */
+  static StarCatalogDiagnostics from(Config config) {
+    String dir = config.starDiagnosticsDir();
+    return dir == null || dir.trim().length() == 0 ? NONE : new AsyncFileDiagnostics(dir.trim());
+  }
+
+  /** If false, then callers shouldn't bother to calculate any diagnostics. */
+  boolean isOn();
+
+  /**
+   Save some lines of text.
+   The lines may be generated later, on a different thread, so the supplier must only use immutable data.
+   @param name a short name for the diagnostic, used in its file name; for example 'stars'.
+  */
+  void save(String name, Supplier<List<String>> lines);
+
+}
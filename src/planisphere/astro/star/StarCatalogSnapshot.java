@@ -0,0 +1,249 @@
+package planisphere.astro.star;
+
+import static planisphere.util.LogUtil.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import planisphere.config.Config;
+import planisphere.config.ConfigFromFile;
+import planisphere.util.DataFileReader;
+
+/**
+ Compact binary snapshot of the raw star catalog, for fast start-up.
+
+ <P>Parsing the fixed-width text file is paid again by every new JVM.
+ The snapshot holds exactly the same raw data (before proper motion and precession),
+ and is read with a memory-mapped buffer.
+ The snapshot is generated once from the text file, by running {@link #main(String...)}.
+
+ <P>When no snapshot is found, {@link StarCatalog} falls back to the text file.
+ It also falls back to the text file when the snapshot can't be read, or when it wasn't generated from the 
+ text file bundled with this package. That's checked with a fingerprint of the text file: its length, and its CRC-32. 
+ A snapshot left over from an older catalog is never used, since the identifiers of its stars may not match 
+ the ones used by the constellation lines.
+
+ <P>The default location of the snapshot is {@value #FILE_NAME}, in the working directory.
+ To use a different file, use the command line setting:
+
+ {@code -DplanisphereStarSnapshot=C:\mydirectory\myfile}
+
+ <P>Layout, all little-endian:
+<pre>
+  header: magic 'PSC1', version, number of stars N, size of the string table in bytes
+  long      length of the text file, CRC-32 of the text file
+  int[N]    index
+  double[N] ra, dec (rads)
+  double[N] magnitude
+  double[N] proper motion in ra, proper motion in dec (arcsec per year)
+  double[N] parallax (arcsec)
+  double[N] radial velocity (km/s), NaN if missing
+  int[N+1]  offsets into the string table for the name
+  int[N+1]  offsets into the string table for the HD designation
+  byte[]    string table, UTF-8
+</pre>
+*/
+public final class StarCatalogSnapshot {
+
+  /** Default file name of the snapshot - {@value}. */
+  public static final String FILE_NAME = "os-bright-star-catalog-hip.bin";
+
+  /**
+   Generate the snapshot from the text file.
+   @param args optional; the full name of the output file.
+  */
+  public static void main(String... args) throws IOException {
+    Config config = new ConfigFromFile().init();
+    StarCatalog catalog = new StarCatalog(config);
+    List<Star> stars = catalog.readRawCatalogText();
+    Path path = args.length > 0 ? Paths.get(args[0]) : defaultPath();
+    new StarCatalogSnapshot().write(stars, path);
+    log("Wrote " + stars.size() + " stars to the snapshot " + path.toAbsolutePath());
+  }
+
+  /** The location of the snapshot file, if it exists. */
+  static Optional<Path> location() {
+    Path path = defaultPath();
+    return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+  }
+
+  /** Write the given raw catalog data to a snapshot file. */
+  public void write(List<Star> stars, Path path) throws IOException {
+    int n = stars.size();
+    byte[] strings = stringTable(stars);
+    ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(sizeOf(n, strings.length))).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(strings.length);
+    long[] fingerprint = sourceFingerprint();
+    buffer.putLong(fingerprint[0]).putLong(fingerprint[1]);
+    for (Star star : stars) {
+      buffer.putInt(star.INDEX);
+    }
+    putColumn(stars, buffer, star -> star.RA);
+    putColumn(stars, buffer, star -> star.DEC);
+    putColumn(stars, buffer, star -> star.MAG);
+    putColumn(stars, buffer, star -> star.PROPER_MOTION_RA);
+    putColumn(stars, buffer, star -> star.PROPER_MOTION_DEC);
+    putColumn(stars, buffer, star -> star.PARALLAX);
+    putColumn(stars, buffer, star -> star.RADIAL_VELOCITY == null ? Double.NaN : star.RADIAL_VELOCITY);
+    int namesEnd = putOffsets(stars, buffer, true, 0);
+    putOffsets(stars, buffer, false, namesEnd);
+    buffer.put(strings);
+    buffer.flip();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /** 
+   Read the raw catalog data from a snapshot file, using a memory-mapped buffer.
+   Any problem with the file, including a fingerprint that doesn't match the bundled text file, is an IOException. 
+  */
+  public List<Star> read(Path path) throws IOException {
+    MappedByteBuffer mapped = null;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IOException("Not a star catalog snapshot, or the wrong version: " + path);
+    }
+    long[] fingerprint = sourceFingerprint();
+    if (buffer.getLong(16) != fingerprint[0] || buffer.getLong(24) != fingerprint[1]) {
+      throw new IOException("Star catalog snapshot wasn't generated from the current text file: " + path);
+    }
+    int n = buffer.getInt(8);
+    int stringsSize = buffer.getInt(12);
+    if (n < 0 || stringsSize < 0 || buffer.capacity() != sizeOf(n, stringsSize)) {
+      throw new IOException("Star catalog snapshot has an unexpected size: " + path);
+    }
+    try {
+      return stars(buffer, n, stringsSize);
+    }
+    catch(RuntimeException ex) {
+      throw new IOException("Corrupt star catalog snapshot: " + path + " " + ex.getMessage(), ex);
+    }
+  }
+
+  // PRIVATE
+
+  /** 'PSC1' */
+  private static final int MAGIC = 0x31435350;
+  /** Increase this when the layout of the file changes. */
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 4 * Integer.BYTES + 2 * Long.BYTES;
+  private static final int NUM_DOUBLE_COLUMNS = 7;
+
+  private List<Star> stars(ByteBuffer buffer, int n, int stringsSize) {
+    int indexes = HEADER_SIZE;
+    int doubles = indexes + n * Integer.BYTES;
+    int nameOffsets = doubles + NUM_DOUBLE_COLUMNS * n * Double.BYTES;
+    int hdOffsets = nameOffsets + (n + 1) * Integer.BYTES;
+    int strings = hdOffsets + (n + 1) * Integer.BYTES;
+
+    List<Star> result = new ArrayList<>(n);
+    for(int i = 0; i < n; ++i) {
+      Star star = new Star();
+      star.INDEX = buffer.getInt(indexes + i * Integer.BYTES);
+      star.RA = column(buffer, doubles, 0, n, i);
+      star.DEC = column(buffer, doubles, 1, n, i);
+      star.MAG = column(buffer, doubles, 2, n, i);
+      star.PROPER_MOTION_RA = column(buffer, doubles, 3, n, i);
+      star.PROPER_MOTION_DEC = column(buffer, doubles, 4, n, i);
+      star.PARALLAX = column(buffer, doubles, 5, n, i);
+      double radialVelocity = column(buffer, doubles, 6, n, i);
+      star.RADIAL_VELOCITY = Double.isNaN(radialVelocity) ? null : radialVelocity;
+      star.NAME = string(buffer, nameOffsets, strings, stringsSize, i);
+      star.HD_DESIGNATION = string(buffer, hdOffsets, strings, stringsSize, i);
+      result.add(star);
+    }
+    return result;
+  }
+
+  private static Path defaultPath() {
+    String fileLocationOverride = System.getProperty("planisphereStarSnapshot");
+    return Paths.get(fileLocationOverride == null ? FILE_NAME : fileLocationOverride);
+  }
+
+  /** A long, since the header of a corrupt file can hold any numbers at all. */
+  private static long sizeOf(int n, int stringsSize) {
+    return HEADER_SIZE + (long)n * Integer.BYTES + NUM_DOUBLE_COLUMNS * (long)n * Double.BYTES + 2 * ((long)n + 1) * Integer.BYTES + stringsSize;
+  }
+
+  /** The length and the CRC-32 of the text file bundled with this package. */
+  private static long[] sourceFingerprint() throws IOException {
+    CRC32 crc = new CRC32();
+    long length = 0;
+    try (ReadableByteChannel channel = StarCatalogStream.bundledCatalog()){
+      ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+      while (channel.read(chunk) != -1) {
+        chunk.flip();
+        length = length + chunk.remaining();
+        crc.update(chunk);
+        chunk.clear();
+      }
+    }
+    return new long[] {length, crc.getValue()};
+  }
+
+  /** All names, followed by all HD designations. */
+  private byte[] stringTable(List<Star> stars) {
+    StringBuilder result = new StringBuilder();
+    for (Star star : stars) {
+      result.append(star.NAME);
+    }
+    for (Star star : stars) {
+      result.append(star.HD_DESIGNATION);
+    }
+    return result.toString().getBytes(DataFileReader.ENCODING);
+  }
+
+  private void putColumn(List<Star> stars, ByteBuffer buffer, Function<Star, Double> column) {
+    for (Star star : stars) {
+      buffer.putDouble(column.apply(star));
+    }
+  }
+
+  /** The offsets for the names start at 0; the offsets for the HD designations continue from there. Returns the end offset. */
+  private int putOffsets(List<Star> stars, ByteBuffer buffer, boolean isName, int start) {
+    int result = start;
+    buffer.putInt(result);
+    for (Star star : stars) {
+      String text = isName ? star.NAME : star.HD_DESIGNATION;
+      result = result + text.getBytes(DataFileReader.ENCODING).length;
+      buffer.putInt(result);
+    }
+    return result;
+  }
+
+  private double column(ByteBuffer buffer, int start, int column, int n, int i) {
+    return buffer.getDouble(start + (column * n + i) * Double.BYTES);
+  }
+
+  private String string(ByteBuffer buffer, int offsets, int strings, int stringsSize, int i) {
+    int from = buffer.getInt(offsets + i * Integer.BYTES);
+    int to = buffer.getInt(offsets + (i + 1) * Integer.BYTES);
+    if (from < 0 || to < from || to > stringsSize) {
+      throw new IllegalArgumentException("Bad offsets into the string table for star " + i + ": " + from + " " + to);
+    }
+    byte[] bytes = new byte[to - from];
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(strings + from);
+    slice.get(bytes);
+    return new String(bytes, DataFileReader.ENCODING);
+  }
+}
@@ -0,0 +1,281 @@
+package planisphere.astro.star;
+
+import static planisphere.util.LogUtil.log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import planisphere.astro.precession.LongTermPrecession;
+import planisphere.astro.precession.PrecessionFrame;
+import planisphere.config.Constants;
+import planisphere.util.DataFileReader;
+
+/**
+ Read star catalog records in a single streaming pass, directly from bytes.
+
+ <P>This is meant for catalogs much larger than the bright star catalog.
+ Nothing is kept for a record that is filtered out, and no String is created for it.
+ The memory used depends only on the number of stars that are retained, not on the size of the input.
+
+ <P>For each record, in order:
+ <ul>
+  <li>the magnitude is parsed, and compared to the limiting magnitude; it doesn't change with the date
+  <li>the position is parsed, and proper motion and precession are applied to it, if there's a target date
+  <li>the declination (after proper motion and precession) is compared to the declination range
+  <li>only then are the text fields decoded
+ </ul>
+
+ <P>The input has the fixed-width format of the open-source bright star catalog (see {@link StarCatalog}).
+ All fields before column 201 are ASCII, so byte offsets match character offsets up to that point.
+ The names start at column 201, and can contain Greek letters.
+
+ <P>Numbers are parsed from the bytes. The fast path is exact: an integer of at most 15 digits,
+ divided by an exact power of 10, is correctly rounded, so the result is the same as {@link Double#parseDouble(String)}.
+
+ <P>Proper names are not added here; see {@link StarName}.
+*/
+public final class StarCatalogStream {
+
+  /** The catalog file bundled with this package - {@value}. */
+  public static final String FILE_NAME = "os-bright-star-catalog-hip.utf8";
+
+  /** Read every record, with no filtering, and with no change to the positions. */
+  public StarCatalogStream() {
+    this(null, Double.MAX_VALUE, -Math.PI / 2, Math.PI / 2, false);
+  }
+
+  /**
+   Constructor.
+   @param jd the date to which proper motion and precession are applied; if null, they are not applied.
+   @param limitingMag records fainter than this are ignored
+   @param minDec records south of this declination (rads, after proper motion and precession) are ignored
+   @param maxDec records north of this declination (rads, after proper motion and precession) are ignored
+   @param discardPolaris if true, then ignore the record for Polaris
+  */
+  public StarCatalogStream(Double jd, double limitingMag, double minDec, double maxDec, boolean discardPolaris) {
+    this.limitingMag = limitingMag;
+    this.minDec = minDec;
+    this.maxDec = maxDec;
+    this.discardPolaris = discardPolaris;
+    if (jd != null) {
+      this.properMotion = new ProperMotion(ProperMotion.J1991_25, jd);
+      this.precession = new LongTermPrecession().frame(jd);
+    }
+  }
+
+  /** The catalog bundled with this package. The caller must close the channel. */
+  public static ReadableByteChannel bundledCatalog() throws IOException {
+    InputStream input = StarCatalogStream.class.getResourceAsStream(FILE_NAME);
+    if (input == null) {
+      throw new IOException("Can't find the star catalog: " + FILE_NAME);
+    }
+    return Channels.newChannel(input);
+  }
+
+  /** Read the records in the given file. */
+  public StarTable read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+      return read(channel);
+    }
+  }
+
+  /** Read the records in the given channel, up to its end. The channel is not closed. */
+  public StarTable read(ReadableByteChannel channel) throws IOException {
+    StarTable.Builder builder = new StarTable.Builder();
+    byte[] bytes = new byte[BUFFER_SIZE];
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    int numRecords = 0;
+    boolean isEnd = false;
+    while (!isEnd) {
+      isEnd = channel.read(buffer) == -1;
+      int filled = buffer.position();
+      int lineStart = 0;
+      for(int i = 0; i < filled; ++i) {
+        if (bytes[i] == '\n') {
+          numRecords = numRecords + processRecord(bytes, lineStart, i, builder);
+          lineStart = i + 1;
+        }
+      }
+      if (isEnd && lineStart < filled) {
+        numRecords = numRecords + processRecord(bytes, lineStart, filled, builder);
+        lineStart = filled;
+      }
+      //keep the partial record, for the next pass
+      System.arraycopy(bytes, lineStart, bytes, 0, filled - lineStart);
+      buffer.position(filled - lineStart);
+      if (!buffer.hasRemaining()) {
+        throw new IOException("Star catalog record is longer than " + BUFFER_SIZE + " bytes.");
+      }
+    }
+    log("Streamed this many records: " + numRecords + ". Retained: " + builder.size());
+    return builder.build();
+  }
+
+  // PRIVATE
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /** The last field is the Flamsteed designation, ending at column 215. */
+  private static final int MIN_RECORD_LENGTH = 215;
+  private static final double[] POWERS_OF_10 = powersOf10();
+  /** Integers up to this size are exact as doubles. */
+  private static final int MAX_EXACT_DIGITS = 15;
+
+  private final double limitingMag;
+  private final double minDec;
+  private final double maxDec;
+  private final boolean discardPolaris;
+  /** Null if there's no target date. */
+  private ProperMotion properMotion;
+  private PrecessionFrame precession;
+
+  /** Scratch objects, reused for every record. */
+  private final Position pos = new Position();
+  private final double[] ra = new double[1];
+  private final double[] dec = new double[1];
+
+  /** Returns 1 if the line is a record, and 0 if it's blank. */
+  private int processRecord(byte[] bytes, int from, int to, StarTable.Builder builder) throws IOException {
+    int end = to;
+    if (end > from && bytes[end - 1] == '\r') {
+      --end;
+    }
+    if (isBlank(bytes, from, end)) {
+      return 0;
+    }
+    if (end - from < MIN_RECORD_LENGTH) {
+      throw new IOException("Star catalog record is too short: " + new String(bytes, from, end - from, DataFileReader.ENCODING));
+    }
+    double mag = number(bytes, from, 148, 5);
+    if (mag > limitingMag) {
+      return 1;
+    }
+    int index = (int)number(bytes, from, 1, 6);
+    if (discardPolaris && index == Constants.POLARIS) {
+      log("Discarding Polaris from star catalog: " + Constants.POLARIS);
+      return 1;
+    }
+    double pmRa = number(bytes, from, 81, 8) / 1000.0D; //mas to arcsec
+    double pmDec = number(bytes, from, 90, 8) / 1000.0D;
+    double parallax = number(bytes, from, 73, 7) / 1000.0D;
+    double radialVelocity = end - from >= 99 + 7 ? optionalNumber(bytes, from, 99, 7) : Double.NaN;
+    pos.α = number(bytes, from, 45, 12);
+    pos.δ = number(bytes, from, 59, 13);
+    if (properMotion != null) {
+      properMotion.applyTo(pos, pmRa, pmDec, parallax, radialVelocity);
+      ra[0] = pos.α;
+      dec[0] = pos.δ;
+      precession.applyAll(ra, dec, 0, 1);
+      pos.α = ra[0];
+      pos.δ = dec[0];
+    }
+    if (pos.δ < minDec || pos.δ > maxDec) {
+      return 1;
+    }
+    //only now create objects
+    String names = new String(bytes, from + 200, end - from - 200, DataFileReader.ENCODING);
+    String name = names.substring(0, 7).trim(); //prefer bayer to flamsteed
+    if (name.isEmpty()) {
+      name = names.substring(8, 15).trim();
+    }
+    String hd = ascii(bytes, from, 189, 6);
+    builder.add(index, pos.α, pos.δ, mag, pmRa, pmDec, parallax, radialVelocity, name, hd);
+    return 1;
+  }
+
+  private static boolean isBlank(byte[] bytes, int from, int to) {
+    boolean result = true;
+    for(int i = from; i < to && result; ++i) {
+      result = bytes[i] == ' ' || bytes[i] == '\t';
+    }
+    return result;
+  }
+
+  /** Trimmed text of an ASCII field. The column is 1-based. */
+  private static String ascii(byte[] bytes, int lineStart, int column, int width) {
+    int[] field = trim(bytes, lineStart + column - 1, width);
+    return new String(bytes, field[0], field[1] - field[0], StandardCharsets.US_ASCII);
+  }
+
+  /** NaN if the field is blank. */
+  private static double optionalNumber(byte[] bytes, int lineStart, int column, int width) {
+    int[] field = trim(bytes, lineStart + column - 1, width);
+    return field[0] == field[1] ? Double.NaN : parse(bytes, field[0], field[1]);
+  }
+
+  /** The column is 1-based. */
+  private static double number(byte[] bytes, int lineStart, int column, int width) {
+    int[] field = trim(bytes, lineStart + column - 1, width);
+    if (field[0] == field[1]) {
+      throw new NumberFormatException("Blank field in star catalog, at column " + column);
+    }
+    return parse(bytes, field[0], field[1]);
+  }
+
+  private static int[] trim(byte[] bytes, int start, int width) {
+    int from = start;
+    int to = start + width;
+    while (from < to && bytes[from] == ' ') {
+      ++from;
+    }
+    while (to > from && bytes[to - 1] == ' ') {
+      --to;
+    }
+    return new int[] {from, to};
+  }
+
+  /** A decimal number, with an optional sign and an optional decimal point. Falls back to the JDK for anything else. */
+  private static double parse(byte[] bytes, int from, int to) {
+    int i = from;
+    boolean isNegative = false;
+    if (bytes[i] == '-' || bytes[i] == '+') {
+      isNegative = bytes[i] == '-';
+      ++i;
+    }
+    long mantissa = 0;
+    int numDigits = 0;
+    int numDecimals = -1;
+    boolean isSimple = i < to;
+    for(; i < to && isSimple; ++i) {
+      byte b = bytes[i];
+      if (b >= '0' && b <= '9') {
+        mantissa = mantissa * 10 + (b - '0');
+        ++numDigits;
+        if (numDecimals >= 0) {
+          ++numDecimals;
+        }
+      }
+      else if (b == '.' && numDecimals < 0) {
+        numDecimals = 0;
+      }
+      else {
+        isSimple = false;
+      }
+    }
+    double result = 0;
+    if (isSimple && numDigits > 0 && numDigits <= MAX_EXACT_DIGITS) {
+      result = numDecimals > 0 ? mantissa / POWERS_OF_10[numDecimals] : mantissa;
+      result = isNegative ? -result : result;
+    }
+    else {
+      result = Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+    }
+    return result;
+  }
+
+  /** Exact as doubles. */
+  private static double[] powersOf10() {
+    double[] result = new double[MAX_EXACT_DIGITS + 1];
+    result[0] = 1.0;
+    for(int i = 1; i < result.length; ++i) {
+      result[i] = result[i - 1] * 10.0;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,137 @@
+package planisphere.astro.star;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ Look up the rows of a {@link StarTable} by identifier, by name, and by proper name, in constant time.
+
+ <P>Names are matched ignoring case, in the same way as {@link String#equalsIgnoreCase(String)}.
+ When more than one row has the same key, the last row wins.
+
+ <P>The rows stay valid for any table derived from the given one with {@link StarTable#withPositions(double[], double[])},
+ since that operation doesn't change the order of the rows.
+ Immutable.
+*/
+public final class StarIndex {
+
+  /** Build all of the indexes for the given table. */
+  public static StarIndex of(StarTable table) {
+    StarIndex result = new StarIndex(table.size());
+    for(int row = 0; row < table.size(); ++row) {
+      result.byIndex.put(table.index(row), row);
+      result.byName.put(fold(table.name(row)), row);
+      result.byProperName.put(fold(table.properName(row)), row);
+    }
+    return result;
+  }
+
+  /** Find a star by its identifier in the underlying catalog (the Hipparcos identifier). */
+  public OptionalInt rowOfIndex(int index) {
+    return byIndex.get(index);
+  }
+
+  /** Find a star by its Bayer or Flamsteed designation, ignoring case. */
+  public OptionalInt rowOfName(String name) {
+    return row(byName, name);
+  }
+
+  /** Find a star by its proper name, ignoring case. */
+  public OptionalInt rowOfProperName(String properName) {
+    return row(byProperName, properName);
+  }
+
+  // PRIVATE
+
+  private final IntToIntMap byIndex;
+  private final Map<String, Integer> byName;
+  private final Map<String, Integer> byProperName;
+
+  private StarIndex(int size) {
+    byIndex = new IntToIntMap(size);
+    byName = new HashMap<>(size * 2);
+    byProperName = new HashMap<>(size * 2);
+  }
+
+  private static OptionalInt row(Map<String, Integer> map, String key) {
+    Integer result = map.get(fold(key));
+    return result == null ? OptionalInt.empty() : OptionalInt.of(result);
+  }
+
+  /** Matches the logic of equalsIgnoreCase: upper case, then lower case, one char at a time. */
+  private static String fold(String text) {
+    char[] result = text.toCharArray();
+    for(int i = 0; i < result.length; ++i) {
+      result[i] = Character.toLowerCase(Character.toUpperCase(result[i]));
+    }
+    return new String(result);
+  }
+
+  /**
+   Map from int to int, with no boxing.
+   Open addressing with linear probing. The table is at most half full.
+  */
+  private static final class IntToIntMap {
+    IntToIntMap(int expectedSize) {
+      int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+      keys = new int[capacity];
+      values = new int[capacity];
+      used = new boolean[capacity];
+      mask = capacity - 1;
+    }
+    /** Replaces any existing value for the key. */
+    void put(int key, int value) {
+      int slot = slotFor(key);
+      if (!used[slot]) {
+        if (2 * (size + 1) > keys.length) {
+          grow();
+          slot = slotFor(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        ++size;
+      }
+      values[slot] = value;
+    }
+    OptionalInt get(int key) {
+      int slot = slotFor(key);
+      return used[slot] ? OptionalInt.of(values[slot]) : OptionalInt.empty();
+    }
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+    /** The slot holding the key, or else the empty slot where it belongs. */
+    private int slotFor(int key) {
+      int slot = mix(key) & mask;
+      while (used[slot] && keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+    /** Spread the bits, since identifiers are often clustered. */
+    private static int mix(int key) {
+      int h = key * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+    private void grow() {
+      int[] oldKeys = keys;
+      int[] oldValues = values;
+      boolean[] oldUsed = used;
+      keys = new int[oldKeys.length * 2];
+      values = new int[oldKeys.length * 2];
+      used = new boolean[oldKeys.length * 2];
+      mask = keys.length - 1;
+      for(int i = 0; i < oldKeys.length; ++i) {
+        if (oldUsed[i]) {
+          int slot = slotFor(oldKeys[i]);
+          used[slot] = true;
+          keys[slot] = oldKeys[i];
+          values[slot] = oldValues[i];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,380 @@
+package planisphere.astro.star;
+
+import static java.util.Comparator.comparing;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import planisphere.draw.Projection;
+
+/**
+ Star catalog data held as parallel columns of primitives, one row per star.
+
+ <P>Compared to a list of {@link Star} objects, this avoids the per-object overhead and the boxing of
+ every number, which matters for catalogs much larger than the bright star catalog.
+
+ <P>This class is immutable.
+ Operations that change positions return a new table, instead of changing data in place.
+ That allows a single table to be shared between threads.
+
+ <P>The rows are always in order of increasing magnitude (brightest first), which is also the order in which
+ stars are drawn. Stars of the same magnitude retain the order in which they were passed to {@link #of(List)}.
+ 
+ <P>A view (see {@link #filterByMag(double)}) is a contiguous range of the rows of another table.
+ A view shares the columns of the table it comes from; nothing is copied.
+
+ <P>Missing parallax and radial velocity are represented as NaN.
+*/
+public final class StarTable {
+
+  /** Build a table from the given star objects, sorted by magnitude. The given list is not changed. */
+  public static StarTable of(List<Star> stars) {
+    List<Star> sorted = new ArrayList<>(stars);
+    sorted.sort(comparing(Star::getMagnitude)); //stable
+    int n = sorted.size();
+    StarTable result = ofSize(n);
+    for(int row = 0; row < n; ++row) {
+      Star star = sorted.get(row);
+      result.index[row] = star.INDEX;
+      result.ra[row] = star.RA;
+      result.dec[row] = star.DEC;
+      result.mag[row] = star.MAG;
+      result.properMotionRa[row] = star.PROPER_MOTION_RA;
+      result.properMotionDec[row] = star.PROPER_MOTION_DEC;
+      result.parallax[row] = star.PARALLAX == null ? Double.NaN : star.PARALLAX;
+      result.radialVelocity[row] = star.RADIAL_VELOCITY == null ? Double.NaN : star.RADIAL_VELOCITY;
+      result.name[row] = star.NAME;
+      result.properName[row] = star.PROPER_NAME;
+      result.hdDesignation[row] = star.HD_DESIGNATION;
+    }
+    return result;
+  }
+
+  /**
+   Build a table one row at a time, without creating a {@link Star} object for each row.
+   The rows are sorted by magnitude when the table is built, as in {@link StarTable#of(List)}.
+  */
+  static final class Builder {
+    /** Missing parallax and radial velocity are NaN. */
+    void add(int index, double ra, double dec, double mag, double pmRa, double pmDec, double parallax, double radialVelocity, String name, String hd) {
+      if (size == indexes.length) {
+        grow();
+      }
+      indexes[size] = index;
+      ras[size] = ra;
+      decs[size] = dec;
+      mags[size] = mag;
+      pmRas[size] = pmRa;
+      pmDecs[size] = pmDec;
+      parallaxes[size] = parallax;
+      radialVelocities[size] = radialVelocity;
+      names[size] = name;
+      hds[size] = hd;
+      ++size;
+    }
+    int size() { return size; }
+    StarTable build() {
+      Integer[] order = new Integer[size];
+      for(int i = 0; i < size; ++i) {
+        order[i] = i;
+      }
+      Arrays.sort(order, comparing(i -> mags[i])); //stable
+      StarTable result = ofSize(size);
+      for(int row = 0; row < size; ++row) {
+        int i = order[row];
+        result.index[row] = indexes[i];
+        result.ra[row] = ras[i];
+        result.dec[row] = decs[i];
+        result.mag[row] = mags[i];
+        result.properMotionRa[row] = pmRas[i];
+        result.properMotionDec[row] = pmDecs[i];
+        result.parallax[row] = parallaxes[i];
+        result.radialVelocity[row] = radialVelocities[i];
+        result.name[row] = names[i];
+        result.properName[row] = "";
+        result.hdDesignation[row] = hds[i];
+      }
+      return result;
+    }
+    private int size;
+    private int[] indexes = new int[1024];
+    private double[] ras = new double[1024];
+    private double[] decs = new double[1024];
+    private double[] mags = new double[1024];
+    private double[] pmRas = new double[1024];
+    private double[] pmDecs = new double[1024];
+    private double[] parallaxes = new double[1024];
+    private double[] radialVelocities = new double[1024];
+    private String[] names = new String[1024];
+    private String[] hds = new String[1024];
+    private void grow() {
+      int capacity = 2 * indexes.length;
+      indexes = Arrays.copyOf(indexes, capacity);
+      ras = Arrays.copyOf(ras, capacity);
+      decs = Arrays.copyOf(decs, capacity);
+      mags = Arrays.copyOf(mags, capacity);
+      pmRas = Arrays.copyOf(pmRas, capacity);
+      pmDecs = Arrays.copyOf(pmDecs, capacity);
+      parallaxes = Arrays.copyOf(parallaxes, capacity);
+      radialVelocities = Arrays.copyOf(radialVelocities, capacity);
+      names = Arrays.copyOf(names, capacity);
+      hds = Arrays.copyOf(hds, capacity);
+    }
+  }
+
+  /** The number of stars in this table. */
+  public int size() {
+    return length;
+  }
+
+  /** Identifier from the underlying star catalog. */
+  public int index(int row) { return index[at(row)]; }
+
+  /** Right ascension in radians. */
+  public double ra(int row) { return ra[at(row)]; }
+
+  /** Declination in radians. */
+  public double dec(int row) { return dec[at(row)]; }
+
+  /** Visual magnitude. */
+  public double mag(int row) { return mag[at(row)]; }
+
+  /** Proper motion in right ascension, (arcseconds per year) * cos(dec). */
+  public double properMotionRa(int row) { return properMotionRa[at(row)]; }
+
+  /** Proper motion in declination, arcseconds per year. */
+  public double properMotionDec(int row) { return properMotionDec[at(row)]; }
+
+  /** Parallax in arcseconds. NaN if missing. May be negative; see {@link Star#PARALLAX}. */
+  public double parallax(int row) { return parallax[at(row)]; }
+
+  /** Heliocentric radial velocity in km/s. NaN if missing. */
+  public double radialVelocity(int row) { return radialVelocity[at(row)]; }
+
+  /** Bayer or Flamsteed designation. Possibly empty, never null. See {@link Star#NAME}. */
+  public String name(int row) { return name[at(row)]; }
+
+  /** 'Vega', for instance. Possibly empty, never null. */
+  public String properName(int row) { return properName[at(row)]; }
+
+  /** Identifier in the Henry Draper catalog. */
+  public String hdDesignation(int row) { return hdDesignation[at(row)]; }
+
+  /** Return a copy of the right ascension column, for use with bulk operations. */
+  public double[] raColumn() {
+    return column(ra);
+  }
+
+  /** Return a copy of the declination column, for use with bulk operations. */
+  public double[] decColumn() {
+    return column(dec);
+  }
+
+  /**
+   Return a new table having the same stars as this one, but with new positions.
+   The arrays have one item per row of this table, and are not copied.
+   The caller must not change the arrays after calling this method.
+  */
+  public StarTable withPositions(double[] ra, double[] dec) {
+    checkSize(ra.length);
+    checkSize(dec.length);
+    StarTable base = compact();
+    return new StarTable(
+      base.index, ra, dec, base.mag, base.properMotionRa, base.properMotionDec, base.parallax, base.radialVelocity, 
+      base.name, base.properName, base.hdDesignation, 0, base.length
+    );
+  }
+
+  /** Return a new table having the same stars as this one, but with the given proper names (one per row). */
+  StarTable withProperNames(String[] properNames) {
+    checkSize(properNames.length);
+    StarTable base = compact();
+    return new StarTable(
+      base.index, base.ra, base.dec, base.mag, base.properMotionRa, base.properMotionDec, base.parallax, base.radialVelocity, 
+      base.name, properNames, base.hdDesignation, 0, base.length
+    );
+  }
+
+  /**
+   Return a view of the stars brighter than or equal to the given limiting magnitude.
+   Found with a binary search. Nothing is copied. 
+  */
+  public StarTable filterByMag(double limitingMag) {
+    int[] range = rangeForMag(limitingMag);
+    return view(offset + range[0], range[1] - range[0]);
+  }
+  
+  /** 
+   The start (inclusive) and end (exclusive) rows of the stars brighter than or equal to the given limiting magnitude.
+   The brightest stars in the sky are about -1.5. Anything brighter than {@link #MIN_MAG} is treated as bad data.
+  */
+  int[] rangeForMag(double limitingMag) {
+    int from = firstRowFainterThan(MIN_MAG, true);
+    int to = Math.max(from, firstRowFainterThan(limitingMag, false));
+    return new int[] {from, to};
+  }
+
+  /**
+   Project every star in this table onto a chart.
+   The key is the star's index from the underlying catalog.
+  */
+  public Map<Integer, Point2D.Double> project(Projection projection){
+    Map<Integer, Point2D.Double> result = new LinkedHashMap<>();
+    for(int row = 0; row < size(); ++row) {
+      result.put(index(row), projection.project(dec(row), ra(row)));
+    }
+    return result;
+  }
+
+  /** Return a new star object for the given row. Changes to the returned object don't affect this table. */
+  public Star star(int row) {
+    Star result = new Star();
+    result.INDEX = index(row);
+    result.NAME = name(row);
+    result.RA = ra(row);
+    result.DEC = dec(row);
+    result.MAG = mag(row);
+    result.PROPER_NAME = properName(row);
+    result.PROPER_MOTION_RA = properMotionRa(row);
+    result.PROPER_MOTION_DEC = properMotionDec(row);
+    result.PARALLAX = Double.isNaN(parallax(row)) ? null : parallax(row);
+    result.RADIAL_VELOCITY = Double.isNaN(radialVelocity(row)) ? null : radialVelocity(row);
+    result.HD_DESIGNATION = hdDesignation(row);
+    return result;
+  }
+
+  /** Return new star objects for all rows, in order. */
+  public List<Star> stars(){
+    List<Star> result = new ArrayList<>(size());
+    for(int row = 0; row < size(); ++row) {
+      result.add(star(row));
+    }
+    return result;
+  }
+
+  // PRIVATE
+  
+  private static final double MIN_MAG = -5.0;
+
+  private final int[] index;
+  private final double[] ra;
+  private final double[] dec;
+  private final double[] mag;
+  private final double[] properMotionRa;
+  private final double[] properMotionDec;
+  private final double[] parallax;
+  private final double[] radialVelocity;
+  private final String[] name;
+  private final String[] properName;
+  private final String[] hdDesignation;
+
+  /** For a view, the first row of the underlying columns. */
+  private final int offset;
+  private final int length;
+
+  /** The columns are not copied. */
+  private StarTable(
+    int[] index, double[] ra, double[] dec, double[] mag, double[] properMotionRa, double[] properMotionDec, 
+    double[] parallax, double[] radialVelocity, String[] name, String[] properName, String[] hdDesignation, 
+    int offset, int length
+  ) {
+    this.index = index;
+    this.ra = ra;
+    this.dec = dec;
+    this.mag = mag;
+    this.properMotionRa = properMotionRa;
+    this.properMotionDec = properMotionDec;
+    this.parallax = parallax;
+    this.radialVelocity = radialVelocity;
+    this.name = name;
+    this.properName = properName;
+    this.hdDesignation = hdDesignation;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /** New, empty columns, to be filled in by the caller. */
+  private static StarTable ofSize(int n) {
+    return new StarTable(
+      new int[n], new double[n], new double[n], new double[n], new double[n], new double[n], 
+      new double[n], new double[n], new String[n], new String[n], new String[n], 0, n
+    );
+  }
+
+  /** Map a row of this table to a row of the underlying columns. */
+  private int at(int row) {
+    return offset + row;
+  }
+
+  /** Shares the columns with this table. */
+  private StarTable view(int viewOffset, int viewLength) {
+    return new StarTable(
+      index, ra, dec, mag, properMotionRa, properMotionDec, parallax, radialVelocity, 
+      name, properName, hdDesignation, viewOffset, viewLength
+    );
+  }
+  
+  private boolean isView() {
+    return offset != 0 || length != index.length;
+  }
+  
+  /** 
+   The first row whose magnitude is fainter than the given magnitude.
+   If inclusive, equal magnitudes count as fainter.
+   Returns the size of the table if there are no such rows. 
+  */
+  private int firstRowFainterThan(double limitingMag, boolean inclusive) {
+    int low = 0;
+    int high = size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      boolean isFainter = inclusive ? mag(middle) >= limitingMag : mag(middle) > limitingMag;
+      if (isFainter) {
+        high = middle;
+      }
+      else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  /** This table, if it's not a view. Otherwise, a copy of the rows of the view. */
+  private StarTable compact() {
+    StarTable result = null;
+    if (!isView()) {
+      result = this;
+    }
+    else {
+      result = ofSize(size());
+      for(int row = 0; row < size(); ++row) {
+        result.index[row] = index(row);
+        result.ra[row] = ra(row);
+        result.dec[row] = dec(row);
+        result.mag[row] = mag(row);
+        result.properMotionRa[row] = properMotionRa(row);
+        result.properMotionDec[row] = properMotionDec(row);
+        result.parallax[row] = parallax(row);
+        result.radialVelocity[row] = radialVelocity(row);
+        result.name[row] = name(row);
+        result.properName[row] = properName(row);
+        result.hdDesignation[row] = hdDesignation(row);
+      }
+    }
+    return result;
+  }
+
+  private double[] column(double[] values) {
+    return Arrays.copyOfRange(values, offset, offset + length);
+  }
+
+  private void checkSize(int length) {
+    if (length != size()) {
+      throw new IllegalArgumentException("Expected " + size() + " items, but found " + length);
+    }
+  }
+}
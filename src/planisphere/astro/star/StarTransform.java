@@ -0,0 +1,122 @@
+package planisphere.astro.star;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import planisphere.astro.precession.PrecessionFrame;
+
+/**
+ Apply proper motion and then precession to every star in a table, in chunks of rows.
+
+ <P>With a parallelism above 1, the chunks are processed on a {@link ForkJoinPool}.
+ Each chunk writes to its own range of the output arrays, and collects its own {@link ProperMotionStats}.
+ No state is shared between chunks.
+
+ <P>The calculation for each star is exactly the same as in the sequential case, so the results
+ are identical, no matter how the work is split up.
+
+ <P>The largest proper motion, and the number of stars that moved more than a degree, are always collected.
+ The lists of stars in the statistics are only for diagnostics. When they aren't wanted, they aren't collected at all.
+*/
+final class StarTransform extends RecursiveTask<ProperMotionStats> {
+
+  /**
+   Constructor.
+   @param table the stars at the catalog epoch; not changed by this class.
+   @param properMotion from the catalog epoch to the target date.
+   @param precession from J2000 to the target date.
+   @param withLists if false, then the returned statistics have no lists of stars.
+  */
+  StarTransform(StarTable table, ProperMotion properMotion, PrecessionFrame precession, boolean withLists) {
+    this(table, properMotion, precession, withLists, new double[table.size()], new double[table.size()], 0, table.size(), table.size());
+  }
+
+  /**
+   Run the calculation.
+   @param parallelism 1 for sequential processing in the calling thread.
+   @return the statistics for the whole table.
+  */
+  ProperMotionStats run(int parallelism) {
+    ProperMotionStats result = null;
+    if (parallelism <= 1) {
+      result = computeDirectly();
+    }
+    else {
+      chunkSize = Math.max(MIN_CHUNK_SIZE, to / (parallelism * CHUNKS_PER_THREAD));
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        result = pool.invoke(this);
+      }
+      finally {
+        pool.shutdown();
+      }
+    }
+    return result;
+  }
+
+  /** Right ascension of each star at the target date. Valid only after {@link #run(int)}. */
+  double[] ra() { return ra; }
+
+  /** Declination of each star at the target date. Valid only after {@link #run(int)}. */
+  double[] dec() { return dec; }
+
+  @Override protected ProperMotionStats compute() {
+    ProperMotionStats result = null;
+    if (to - from <= chunkSize) {
+      result = computeDirectly();
+    }
+    else {
+      int middle = (from + to) >>> 1;
+      StarTransform left = new StarTransform(table, properMotion, precession, withLists, ra, dec, from, middle, chunkSize);
+      StarTransform right = new StarTransform(table, properMotion, precession, withLists, ra, dec, middle, to, chunkSize);
+      left.fork();
+      ProperMotionStats rightStats = right.compute();
+      result = left.join().merge(rightStats);
+    }
+    return result;
+  }
+
+  // PRIVATE
+
+  private static final long serialVersionUID = 1L;
+  private static final int MIN_CHUNK_SIZE = 256;
+  /** More chunks than threads, to balance the load. */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final StarTable table;
+  private final ProperMotion properMotion;
+  private final PrecessionFrame precession;
+  private final boolean withLists;
+  private final double[] ra;
+  private final double[] dec;
+  private final int from;
+  private final int to;
+  private int chunkSize;
+
+  private StarTransform(StarTable table, ProperMotion properMotion, PrecessionFrame precession, boolean withLists, double[] ra, double[] dec, int from, int to, int chunkSize) {
+    this.table = table;
+    this.properMotion = properMotion;
+    this.precession = precession;
+    this.withLists = withLists;
+    this.ra = ra;
+    this.dec = dec;
+    this.from = from;
+    this.to = to;
+    this.chunkSize = chunkSize;
+  }
+
+  private ProperMotionStats computeDirectly() {
+    ProperMotionStats result = new ProperMotionStats(withLists);
+    Position pos = new Position();
+    for(int row = from; row < to; ++row) {
+      pos.α = table.ra(row);
+      pos.δ = table.dec(row);
+      double arcsecs = properMotion.applyTo(table, row, pos);
+      ra[row] = pos.α;
+      dec[row] = pos.δ;
+      result.add(row, arcsecs, table.mag(row));
+    }
+    precession.applyAll(ra, dec, from, to);
+    return result;
+  }
+}
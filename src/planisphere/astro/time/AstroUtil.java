@@ -65,10 +65,15 @@ public final class AstroUtil {
   
   /** Return rads, 0..pi. */
   public static double angularSeparation(Position a, Position b) {
+    return angularSeparation(a.α, a.δ, b.α, b.δ);
+  }
+
+  /** Return rads, 0..pi. The same as {@link #angularSeparation(Position, Position)}, with no objects. */
+  public static double angularSeparation(double α1, double δ1, double α2, double δ2) {
     //Meeus page 111
-    double Δα = b.α - a.α;
-    double Δδ = b.δ - a.δ;
-    double havd = hav(Δδ) + Math.cos(a.δ) * Math.cos(b.δ) * hav(Δα);
+    double Δα = α2 - α1;
+    double Δδ = δ2 - δ1;
+    double havd = hav(Δδ) + Math.cos(δ1) * Math.cos(δ2) * hav(Δα);
     double cosd = 1 - 2 * havd;
     return Math.acos(cosd); //0..pi
   }
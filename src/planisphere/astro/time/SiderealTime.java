@@ -65,6 +65,15 @@ public final class SiderealTime {
     return Maths.in2pi(result);
   }
 
+  /**
+   The same as above, for a given Julian Date (UT).
+   Unlike the above, no date-time objects are created, for callers that need the sidereal time at many nearby moments.
+   The longitude is in radians. The return value is in radians, 0..2pi.
+  */
+  public static double siderealTime(double jd, double longitude) {
+    return Maths.in2pi(greenwichSideralTimeFromJd(jd) + longitude);
+  }
+
   /** 
    The Standard Time in the configured time zone, 
    for which the daily sidereal time is found for the configured position - {@value}. 
@@ -83,7 +92,7 @@ public final class SiderealTime {
   }
   
   /** Returns radians, 0..2pi. */
-  private double greenwichSideralTimeFromJd(double jd) {
+  private static double greenwichSideralTimeFromJd(double jd) {
     //Meeus page 84
     double T = julianCenturiesSinceJ2000(jd);
     double result = 280.46061837 + 360.98564736629*(jd - J2000) + 0.000387933*(T*T) - (T*T*T)/38710000; // degrees
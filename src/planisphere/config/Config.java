@@ -29,7 +29,8 @@ public final class Config {
     Integer year, String location, Double latitude, Double longitude, Integer hoursOffsetFromUT, 
     Integer minutesOffsetFromUT, Double declinationGap, Float width, Float height, 
     String outputDir, String fontDir, Integer greyConstellationLines, Integer greyAltAzLines, Integer smallestTimeDivision, 
-    String radiants, String monthNames, String lunarTransitsTitle, String planetaryTransitsTitle, String planetNames, Boolean discardPolaris
+    String radiants, String monthNames, String lunarTransitsTitle, String planetaryTransitsTitle, String solarEventsTitle, String planetNames, Boolean discardPolaris,
+    Integer starCatalogParallelism, String starDiagnosticsDir, Double ephemerisPrecision
   ){
     this.year = year;
     this.location = location;
@@ -49,8 +50,12 @@ public final class Config {
     this.monthNames = monthNames;
     this.lunarTransitsTitle = lunarTransitsTitle;
     this.planetaryTransitsTitle = planetaryTransitsTitle;
+    this.solarEventsTitle = solarEventsTitle;
     this.planetNames = planetNames;
     this.discardPolaris = discardPolaris;
+    this.starCatalogParallelism = starCatalogParallelism;
+    this.starDiagnosticsDir = starDiagnosticsDir;
+    this.ephemerisPrecision = ephemerisPrecision;
   }
 
   /** 
@@ -145,12 +150,38 @@ public final class Config {
   /** Title of a table on the back of the star chart. */
   public String planetaryTransitsTitle() { return planetaryTransitsTitle; };
   
+  /** 
+   Title of a table on the back of the star chart, for the times of sunrise, sunset and nautical twilight.
+   Blank means that the table is not shown.
+  */
+  public String solarEventsTitle() { return solarEventsTitle; }
+  
   /** The names of planets on the back of the star chart. */
   public String planetNames() { return planetNames; }
 
   /** Discarding Polaris from the chart makes it easier to center and align the chart with the transparency. */
   public Boolean discardPolaris() { return discardPolaris; }
   
+  /** 
+   The number of threads used to apply proper motion and precession to the star catalog.
+   1 for no parallelism. 0 for the number of available processors.
+   The result is the same in all cases; only the speed changes.
+  */
+  public Integer starCatalogParallelism() { return starCatalogParallelism; }
+  
+  /** 
+   The directory for the diagnostic files about the star catalog, written in the background.
+   Blank means that no diagnostics are generated at all.
+  */
+  public String starDiagnosticsDir() { return starDiagnosticsDir; }
+  
+  /** 
+   The precision needed from the series for the positions of the Sun and planets, in arcseconds.
+   The smallest terms of the series are dropped, as long as the error stays under this value for the given year.
+   0 means to use the full series. If not set, 10 arcseconds.
+  */
+  public Double ephemerisPrecision() { return ephemerisPrecision; }
+  
   /** The extreme declination to be shown on the planisphere, in degrees. Calculated field. */
   public Double declinationLimit() {
     double lat = Maths.radsToDegs(latitude);
@@ -215,8 +246,12 @@ public final class Config {
     toStringLine(Setting.month_names, monthNames(), result);
     toStringLine(Setting.lunar_transits_title, lunarTransitsTitle(), result);
     toStringLine(Setting.planetary_transits_title, planetaryTransitsTitle(), result);
+    toStringLine(Setting.solar_events_title, solarEventsTitle(), result);
     toStringLine(Setting.planet_names, planetNames(), result);
     toStringLine(Setting.discard_polaris, discardPolaris(), result);
+    toStringLine(Setting.star_catalog_parallelism, starCatalogParallelism(), result);
+    toStringLine(Setting.star_diagnostics_directory, starDiagnosticsDir(), result);
+    toStringLine(Setting.ephemeris_precision, ephemerisPrecision(), result);
     return result.toString().trim();
   }
   
@@ -241,8 +276,12 @@ public final class Config {
   
   private String lunarTransitsTitle = "";
   private String planetaryTransitsTitle = "";
+  private String solarEventsTitle = "";
   private String planetNames = "";
   private Boolean discardPolaris = Boolean.TRUE;
+  private Integer starCatalogParallelism = 1;
+  private String starDiagnosticsDir = "";
+  private Double ephemerisPrecision = 10.0;
 
   private void toStringLine(Setting setting, Object value, StringBuilder result) {
     result.append("  " + setting.toString() + " = " + value.toString() + Constants.NL); 
@@ -69,8 +69,12 @@ public final class ConfigFromFile {
   private String monthNames = "";
   private String lunarTransitsTitle = "";
   private String planetaryTransitsTitle = "";
+  private String solarEventsTitle = "";
   private String planetNames = "";
   private Boolean discardPolaris = Boolean.TRUE;
+  private Integer starCatalogParallelism = 1;
+  private String starDiagnosticsDir = "";
+  private Double ephemerisPrecision = 10.0;
 
   private void processEach(String line) {
     if (line.startsWith(DataFileReader.COMMENT) || line.length() == 0) {
@@ -136,12 +140,32 @@ public final class ConfigFromFile {
       else if (matches(Setting.planetary_transits_title, parts)) {
         planetaryTransitsTitle = asString(parts);
       }
+      else if (matches(Setting.solar_events_title, parts)) {
+        solarEventsTitle = asOptionalString(parts);
+      }
       else if (matches(Setting.planet_names, parts)) {
         planetNames = asString(parts);
       }
       else if (matches(Setting.discard_polaris, parts)) {
         discardPolaris = asBoolean(parts);
       }
+      else if (matches(Setting.star_catalog_parallelism, parts)) {
+        starCatalogParallelism = asInteger(parts);
+        if (starCatalogParallelism < 0) {
+          String msg = "Config problem! star_catalog_parallelism can't be negative. Your value is " + starCatalogParallelism;
+          throw new RuntimeException(msg);
+        }
+      }
+      else if (matches(Setting.star_diagnostics_directory, parts)) {
+        starDiagnosticsDir = asOptionalString(parts);
+      }
+      else if (matches(Setting.ephemeris_precision, parts)) {
+        ephemerisPrecision = asDouble(parts);
+        if (ephemerisPrecision < 0) {
+          String msg = "Config problem! ephemeris_precision can't be negative. Your value is " + ephemerisPrecision;
+          throw new RuntimeException(msg);
+        }
+      }
     }
   }
   
@@ -153,6 +177,11 @@ public final class ConfigFromFile {
     return parts[VALUE].trim();
   }
   
+  /** The value can be missing. */
+  private String asOptionalString(String[] parts) {
+    return parts.length > VALUE ? asString(parts) : "";
+  }
+  
   private Double asDouble(String[] parts) {
     return Double.valueOf(asString(parts));
   }
@@ -180,7 +209,8 @@ public final class ConfigFromFile {
       year, location, latitude, longitude, hoursOffsetFromUT, minutesOffsetFromUT, declinationGap, 
       width, height, outputDir, fontDir, greyConstellationLines, greyAltAzLines, 
       smallestTimeDivision, radiants, monthNames, lunarTransitsTitle, 
-      planetaryTransitsTitle, planetNames, discardPolaris
+      planetaryTransitsTitle, solarEventsTitle, planetNames, discardPolaris, starCatalogParallelism, starDiagnosticsDir,
+      ephemerisPrecision
     );
   }
 }
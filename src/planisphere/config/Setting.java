@@ -21,7 +21,11 @@ enum Setting {
   month_names,
   lunar_transits_title,
   planetary_transits_title,
+  solar_events_title,
   planet_names,
-  discard_polaris;
+  discard_polaris,
+  star_catalog_parallelism,
+  star_diagnostics_directory,
+  ephemeris_precision;
   
 }
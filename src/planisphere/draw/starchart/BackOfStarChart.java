@@ -3,12 +3,6 @@ package planisphere.draw.starchart;
 import java.text.DecimalFormat;
 import java.time.DateTimeException;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.regex.Pattern;
 
 import com.itextpdf.text.BaseColor;
@@ -25,12 +19,9 @@ import com.itextpdf.text.pdf.GrayColor;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 
-import planisphere.astro.moon.FractionIlluminated;
-import planisphere.astro.moon.LunarPosition;
+import planisphere.astro.almanac.Almanac;
+import planisphere.astro.ephemeris.EphemerisMemo;
 import planisphere.astro.planets.Planet;
-import planisphere.astro.planets.PlanetPosition;
-import planisphere.astro.planets.SolarPosition;
-import planisphere.astro.planets.Transit;
 import planisphere.config.Config;
 import planisphere.config.Constants;
 import planisphere.math.Maths;
@@ -39,9 +30,10 @@ import planisphere.util.LogUtil;
 /** Supplementary info on the back of the star chart. */
 final class BackOfStarChart {
   
-  public BackOfStarChart(Document document, Config config) {
+  public BackOfStarChart(Document document, Config config, EphemerisMemo ephemeris) {
     this.document = document;
     this.config = config;
+    this.ephemeris = ephemeris;
   }
   
   /**
@@ -50,9 +42,16 @@ final class BackOfStarChart {
     
     <P>A second table has the times of transit for the bright planets on the 15th of every month.
     
+    <P>A third (optional) table has the times of sunrise, sunset, and nautical twilight, for every day of the year.
+    It doesn't fit on the back of the chart, so it's placed on a page of its own, between the back and the front of the chart.
+    
     <P>Dates and times are in the observer's local time zone.   
   */
   void addContent() throws DocumentException  {
+    LogUtil.log("Almanac for the back of the star chart.");
+    boolean withSolarEvents = config.solarEventsTitle().length() > 0;
+    Almanac almanac = Almanac.forYear(config, ephemeris, withSolarEvents);
+    
     LogUtil.log("Transit times on the back of the star chart: Moon.");
     emptyLines(5);
     title(config.location() + " " + config.year() + " " + latLongEtc());
@@ -60,35 +59,46 @@ final class BackOfStarChart {
     
     emptyLines(1);
     
-    Transit lunar = new Transit(config);
-    LunarPosition sourceOf = new LunarPosition();
-    FractionIlluminated fractionIllumin = new FractionIlluminated(new SolarPosition(), new LunarPosition());
-    Map<LocalDate, Double> fractions = fractionIllumin.forEveryDayOfTheYear(config);
-    tableForBoth(lunar.transitsForEveryDayOfTheYear(sourceOf::position), fractions);
+    tableForBoth(almanac);
     
     LogUtil.log("Transit times on the back of the star chart: Planets.");
     title(config.planetaryTransitsTitle());
     emptyLines(1);
-    tableFor(planetaryTransitsForMidMonth());
+    tableFor(almanac);
+    
     title(URL);
+    
+    if (withSolarEvents) {
+      LogUtil.log("Sunrise, sunset, and nautical twilight on a separate page.");
+      document.newPage();
+      title(config.solarEventsTitle());
+      emptyLines(1);
+      tableForSun(almanac);
+    }
   }
   
   private Document document;
   private Config config;
+  private EphemerisMemo ephemeris;
+  private DecimalFormat fractionFormat = new DecimalFormat("0.00");
 
   /* Cross-talk: various settings of the table affect each other. */
   private static final float FONT_SIZE = 6.0F;
+  /** For the table of sunrise and sunset, which has two times on each line of a cell. */
+  private static final float SMALL_FONT_SIZE = 5.0F;
   private static final int NUM_COLUMNS = 13;
   private static final String BLANK_ENTRY = "";
-  private static final String TIME_FORMAT =  "HH:mm";
+  private static final String NO_TIME = "--:--";
   
   private static final int PERCENTAGE_WIDTH_LUNAR = 75;
   
   private static final int PERCENTAGE_WIDTH_PLANETS = 50;
   
+  private static final int PERCENTAGE_WIDTH_SUN = 100;
+  
   private static final String URL = "github.com/johanley/planisphere";
 
-  private void tableForBoth(List<Optional<LocalDateTime>> lunarTransits, Map<LocalDate, Double> lunarFractionIlluminated) throws DocumentException {
+  private void tableForBoth(Almanac almanac) throws DocumentException {
     PdfPTable table = new PdfPTable(NUM_COLUMNS);
     table.setWidthPercentage(PERCENTAGE_WIDTH_LUNAR);
     table.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -107,24 +117,21 @@ final class BackOfStarChart {
           addRowCell(table, String.format("%2s", day));
         }
         else {
-          addRowCell(table, entryFor(col, day, lunarTransits, lunarFractionIlluminated));
+          addRowCell(table, entryFor(col, day, almanac));
         }
       }
     }
     document.add(table);
   }
   
-  private String entryFor(int col, int day, List<Optional<LocalDateTime>> lunarTransits, Map<LocalDate, Double> lunarFractionIlluminated){
+  private String entryFor(int col, int day, Almanac almanac){
     String result = "";
     try {
-      LocalDate date = LocalDate.of(config.year(), col, day);
-      Double fraction = lunarFractionIlluminated.get(date);
-      DecimalFormat dec = new DecimalFormat("0.00");
-      result = dec.format(fraction);
-      
-      Optional<LocalDateTime> dateTime = lookupTransitTime(col, day, lunarTransits);
-      if (dateTime.isPresent()) {
-        result = result + " " + timeOf(dateTime);
+      int index = almanac.dayIndex(LocalDate.of(config.year(), col, day));
+      result = fractionFormat.format(almanac.lunarFraction(index));
+      int transit = almanac.lunarTransit(index);
+      if (transit != Almanac.NONE) {
+        result = result + " " + Almanac.timeOf(transit, BLANK_ENTRY);
       }
     }
     catch(DateTimeException ex) {
@@ -133,18 +140,48 @@ final class BackOfStarChart {
     return result;
   }
   
-  /** For the 15th of each month. */
-  private Map<Planet, List<Optional<LocalDateTime>>> planetaryTransitsForMidMonth(){
-    Map<Planet, List<Optional<LocalDateTime>>> result = new LinkedHashMap<>();
-    for(Planet planet : Planet.WITHOUT_EARTH) {
-      Transit tr = new Transit(config);
-      PlanetPosition sourceOf = new PlanetPosition(planet);
-      List<Optional<LocalDateTime>> monthlyTransits = tr.transitsForMidMonth(sourceOf::position);
-      result.put(planet, monthlyTransits);
+  /** Two lines in each cell: the morning events, then the evening events. */
+  private void tableForSun(Almanac almanac) throws DocumentException {
+    PdfPTable table = new PdfPTable(NUM_COLUMNS);
+    table.setWidthPercentage(PERCENTAGE_WIDTH_SUN);
+    table.setHorizontalAlignment(Element.ALIGN_CENTER);
+    float[] relativeWidths = {1.75f, 3.0f, 3.0f, 3.0f, 3.0f, 3.0f, 3.0f, 3.0f, 3.0f, 3.0f, 3.0f, 3.0f, 3.0f};
+    table.setWidths(relativeWidths);
+    
+    addHeaderCell(table, BLANK_ENTRY); 
+    for(String monthName : config.monthNamesList()) {
+      addHeaderCell(table, monthName.trim()); 
+    }
+    table.setHeaderRows(1);
+    
+    for(int day = 1; day <= 31; day++) { 
+      for(int col = 0; col <= 12 ; ++col) {
+        if (col == 0) {
+          addRowCell(table, String.format("%2s", day));
+        }
+        else {
+          addSmallRowCell(table, entryForSun(col, day, almanac));
+        }
+      }
+    }
+    document.add(table);
+  }
+  
+  private String entryForSun(int col, int day, Almanac almanac){
+    String result = "";
+    try {
+      int index = almanac.dayIndex(LocalDate.of(config.year(), col, day));
+      result = 
+        Almanac.timeOf(almanac.dawn(index), NO_TIME) + " " + Almanac.timeOf(almanac.sunrise(index), NO_TIME) + Constants.NL + 
+        Almanac.timeOf(almanac.sunset(index), NO_TIME) + " " + Almanac.timeOf(almanac.dusk(index), NO_TIME)
+      ;
+    }
+    catch(DateTimeException ex) {
+      //the year-month-day combo is not valid; do nothing; no data will be present
     }
     return result;
   }
-
+  
   private void title(String title) throws DocumentException {
     Chunk chunk = new Chunk(title, normalFont());
     Paragraph tableTitle = new Paragraph();
@@ -153,7 +190,7 @@ final class BackOfStarChart {
     document.add(tableTitle);
   }
   
-  private void tableFor(Map<Planet, List<Optional<LocalDateTime>>> planetaryTransits) throws DocumentException {
+  private void tableFor(Almanac almanac) throws DocumentException {
     PdfPTable table = new PdfPTable(NUM_COLUMNS);
     table.setWidthPercentage(PERCENTAGE_WIDTH_PLANETS);
     table.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -172,57 +209,13 @@ final class BackOfStarChart {
           addRowCell(table, nameOf(planet));
         }
         else {
-          Optional<LocalDateTime> dateTime = lookupTransitTime(planet, col, planetaryTransits.get(planet));
-          if (dateTime.isEmpty()) {
-            addRowCell(table, BLANK_ENTRY);
-          }
-          else {
-            addRowCell(table, timeOf(dateTime));
-          }
+          addRowCell(table, Almanac.timeOf(almanac.planetaryTransit(planet, col), BLANK_ENTRY));
         }
       }
     }
     document.add(table);
   }
   
-  /** The Moon has a transit (usually) for each day. */
-  private Optional<LocalDateTime> lookupTransitTime(int month, int day, List<Optional<LocalDateTime>> lunarTransits){
-    Optional<LocalDateTime> result = Optional.empty();
-    for(Optional<LocalDateTime> lunarTransit : lunarTransits) {
-      if (lunarTransit.isPresent()) {
-        LocalDateTime ldt = lunarTransit.get();
-        if (ldt.getMonthValue() == month && ldt.getDayOfMonth() == day) {
-          result = lunarTransit;
-          break;
-        }
-      }
-    }
-    return result;
-  }
-  
-  /** The planets have a transit (usually) for the 15th of each month. */
-  private Optional<LocalDateTime> lookupTransitTime(Planet planet, int month, List<Optional<LocalDateTime>> planetaryTransits){
-    Optional<LocalDateTime> result = Optional.empty();
-    for(Optional<LocalDateTime> planetaryTransit : planetaryTransits) {
-      if (planetaryTransit.isPresent()) {
-        LocalDateTime ldt = planetaryTransit.get();
-        if (ldt.getMonthValue() == month) {
-          result = planetaryTransit;
-          break;
-        }
-      }
-    }
-    return result;
-  }
-  
-  private String timeOf(Optional<LocalDateTime> dt) {
-    return formatted(dt, TIME_FORMAT);
-  }
-  
-  private String formatted(Optional<LocalDateTime> dt, String format) {
-    return dt.isPresent() ?  dt.get().format(DateTimeFormatter.ofPattern(format)) : BLANK_ENTRY; 
-  }
-  
   private void addHeaderCell(PdfPTable table, String text) {
     Chunk chunk = new Chunk(text, normalFont());
     GrayColor grey = new GrayColor(0.8f);
@@ -234,6 +227,11 @@ final class BackOfStarChart {
     addChunk(table, chunk, null);
   }
 
+  private void addSmallRowCell(PdfPTable table, String string) {
+    Chunk chunk = new Chunk(string, font(SMALL_FONT_SIZE));
+    addChunk(table, chunk, null);
+  }
+
   private void addChunk(PdfPTable table, Chunk chunk, BaseColor baseColor) {
     Phrase phrase = new Phrase(chunk);
     PdfPCell cell = new PdfPCell(phrase);
@@ -249,12 +247,16 @@ final class BackOfStarChart {
   }
   
   private Font normalFont() {
+    return font(FONT_SIZE);
+  }
+  
+  private Font font(float size) {
     //WARNING: I added BaseFont.IDENTITY_H to make Greek letters appear; otherwise nothing showed
     /*
      * https://stackoverflow.com/questions/3858423/itext-pdf-greek-letters-are-not-appearing-in-the-resulting-pdf-documents
      * https://itextpdf.com/en/resources/faq/technical-support/itext-5-legacy/how-print-mathematical-characters
      */
-    return FontFactory.getFont(Constants.FONT_NAME, BaseFont.IDENTITY_H, FONT_SIZE, Font.NORMAL);
+    return FontFactory.getFont(Constants.FONT_NAME, BaseFont.IDENTITY_H, size, Font.NORMAL);
   }
 
   /** Used only to control the vertical placement of the table on the page. */
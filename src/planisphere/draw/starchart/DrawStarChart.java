@@ -13,6 +13,7 @@ import java.util.Map;
 import java.util.function.Consumer;
 
 import planisphere.astro.constellation.ConstellationLines;
+import planisphere.astro.ephemeris.EphemerisMemo;
 import planisphere.astro.star.Star;
 import planisphere.config.Config;
 import planisphere.draw.ChartUtil;
@@ -27,7 +28,7 @@ public final class DrawStarChart {
   
   public DrawStarChart(
     List<Star> stars, ConstellationLines constellationLines, 
-    Projection projection, Graphics2D g, Config config
+    Projection projection, Graphics2D g, Config config, EphemerisMemo ephemeris
   ) {
     this.width = config.width();
     this.height = config.height();
@@ -38,6 +39,7 @@ public final class DrawStarChart {
     this.projection = projection;
     this.chartUtil = new ChartUtil(width, height);
     this.config = config;
+    this.ephemeris = ephemeris;
   }
   
   /** Draw the constellation lines and stars. */
@@ -63,6 +65,7 @@ public final class DrawStarChart {
   //PRIVATE
   
   private Config config; 
+  private EphemerisMemo ephemeris;
   
   /** Various utility methods for drawing, and data. */
   private ChartUtil chartUtil;
@@ -147,7 +150,7 @@ public final class DrawStarChart {
   }
   
   private void sun() {
-    SunMarks sunDots = new SunMarks(projection, g, config);
+    SunMarks sunDots = new SunMarks(projection, g, config, ephemeris);
     sunDots.draw();
   }
   
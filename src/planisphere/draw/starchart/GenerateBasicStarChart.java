@@ -12,7 +12,7 @@ import com.itextpdf.text.DocumentException;
 import planisphere.GeneratePdfABC;
 import planisphere.astro.constellation.ConstellationLines;
 import planisphere.astro.star.Star;
-import planisphere.astro.star.StarCatalog;
+import planisphere.astro.star.StarCatalogCache;
 import planisphere.astro.time.GregorianCal;
 import planisphere.config.Config;
 import planisphere.draw.ChartUtil;
@@ -31,12 +31,11 @@ public final class GenerateBasicStarChart extends GeneratePdfABC {
   protected void addContentToTheDocument(Graphics2D g) throws DocumentException, MalformedURLException, IOException {
     log("Basic star chart.");
     
-    StarCatalog starCatalog = new StarCatalog(config);
     Double janFirst = GregorianCal.jd(config.year(), 1, 1.0);
     log("Applying proper motion/precession with JD " + janFirst + ", for Jan 1.0 " + config.year());
-    starCatalog.generateIntermediateStarCatalog(janFirst);
-    List<Star> stars = starCatalog.filterByMag(ChartUtil.LIMITING_MAG);
-    log("Using " + stars.size() + " stars out of " + starCatalog.all().size());
+    StarCatalogCache.Entry cached = StarCatalogCache.instance().lookup(config, janFirst, ChartUtil.LIMITING_MAG);
+    List<Star> stars = cached.stars();
+    log("Using " + stars.size() + " stars out of " + cached.all().size());
     
     ConstellationLines constellationLines = new ConstellationLines();
     constellationLines.readData(config.discardPolaris());
@@ -11,8 +11,11 @@ import com.itextpdf.text.DocumentException;
 
 import planisphere.GeneratePdfABC;
 import planisphere.astro.constellation.ConstellationLines;
+import planisphere.astro.ephemeris.Ephemeris;
+import planisphere.astro.ephemeris.EphemerisMemo;
+import planisphere.astro.precession.PrecessionModel;
 import planisphere.astro.star.Star;
-import planisphere.astro.star.StarCatalog;
+import planisphere.astro.star.StarCatalogCache;
 import planisphere.astro.time.GregorianCal;
 import planisphere.config.Config;
 import planisphere.draw.ChartUtil;
@@ -35,17 +38,16 @@ public final class GenerateStarChart extends GeneratePdfABC {
   protected void addContentToTheDocument(Graphics2D g) throws DocumentException, MalformedURLException, IOException {
     log("Star chart.");
     
-    StarCatalog starCatalog = new StarCatalog(config);
     Double janFirst = GregorianCal.jd(config.year(), 1, 1.0);
     log("Applying precession with JD " + janFirst + ", for Jan 1.0 " + config.year());
-    starCatalog.generateIntermediateStarCatalog(janFirst);
-    List<Star> stars = starCatalog.filterByMag(ChartUtil.LIMITING_MAG);
-    log("Using " + stars.size() + " stars out of " + starCatalog.all().size());
+    StarCatalogCache.Entry cached = StarCatalogCache.instance().lookup(config, janFirst, ChartUtil.LIMITING_MAG);
+    List<Star> stars = cached.stars();
+    log("Using " + stars.size() + " stars out of " + cached.all().size());
     
     ConstellationLines constellationLines = new ConstellationLines();
     constellationLines.readData(config.discardPolaris());
     log("Size of constellation lines map: " + constellationLines.all().size());
-    List<Star> missingStars = constellationLines.scanForAnyMissingStarsInThe(stars, starCatalog);
+    List<Star> missingStars = constellationLines.scanForAnyMissingStarsInThe(stars, cached::findByIndex);
     log("Num stars referenced by the constellation lines data structure that are missing from the core data: " + missingStars.size());
     for (Star missingStar : missingStars) {
       log(" " + missingStar);
@@ -53,11 +55,16 @@ public final class GenerateStarChart extends GeneratePdfABC {
     
     Projection projection = new StereographicProjection(config);
 
-    BackOfStarChart back = new BackOfStarChart(document, config);
+    //the same precession and ephemeris, for the back and the front of the chart
+    Ephemeris ephemeris = Ephemeris.forYear(config, PrecessionModel.forYear(config.year()));
+    EphemerisMemo memo = new EphemerisMemo(ephemeris);
+    
+    BackOfStarChart back = new BackOfStarChart(document, config, memo);
     back.addContent();
     startNewPage();
     
-    DrawStarChart drawStarChart = new DrawStarChart(stars, constellationLines, projection, g, config);
+    DrawStarChart drawStarChart = new DrawStarChart(stars, constellationLines, projection, g, config, memo);
     drawStarChart.draw();
+    log(memo.toString());
   }
  }
\ No newline at end of file
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 import planisphere.astro.precession.LongTermPrecession;
+import planisphere.astro.precession.PrecessionFrame;
 import planisphere.astro.star.Position;
 import planisphere.astro.time.GregorianCal;
 import planisphere.config.Config;
@@ -43,9 +44,9 @@ public final class ShowerRadiant {
   */
   public void draw() {
     double jd = GregorianCal.jd(config.year(), 7, 1.0);
-    LongTermPrecession precession = new LongTermPrecession();
+    PrecessionFrame precession = new LongTermPrecession().frame(jd);
     for (Position radiant : radiants()) {
-      Position position = precession.apply(radiant, jd);
+      Position position = precession.apply(radiant);
       showMark(position);
     }
   }
@@ -1,13 +1,11 @@
 package planisphere.draw.starchart;
 
-import static java.util.Comparator.comparing;
 import static planisphere.math.Maths.inRange;
 
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Point2D;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -27,13 +25,13 @@ public class StarDots {
   
   /** 
    The star positions have already been found.
-   Sort the stars first by magnitude, so that smaller star-dots will overwrite larger star-dots in the background.
+   The stars are already sorted by magnitude (see {@link planisphere.astro.star.StarCatalog#filterByMag(Double)}), 
+   so that smaller star-dots will overwrite larger star-dots in the background.
    Black circle, with a small white border around it.
    The small white border looks good when 2 stars are near each other.
    It also looks better for the constellation lines.
   */
   void draw() {
-     Collections.sort(stars, comparing(Star::getMagnitude));
      for (Star star : stars) {
        drawStarDot(star);
      }
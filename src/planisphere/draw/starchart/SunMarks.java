@@ -7,8 +7,8 @@ import java.awt.geom.Point2D;
 import java.time.LocalDateTime;
 import java.time.Month;
 
-import planisphere.astro.planets.SolarPosition;
-import planisphere.astro.precession.LongTermPrecession;
+import planisphere.astro.ephemeris.Body;
+import planisphere.astro.ephemeris.EphemerisMemo;
 import planisphere.astro.star.Position;
 import planisphere.astro.time.GregorianCal;
 import planisphere.config.Config;
@@ -25,25 +25,23 @@ import planisphere.util.LogUtil;
 */
 final class SunMarks {
   
-  SunMarks(Projection projection, Graphics2D g, Config config){
+  SunMarks(Projection projection, Graphics2D g, Config config, EphemerisMemo ephemeris){
     this.projection = projection;
     this.g = g;
     this.config = config;
+    this.ephemeris = ephemeris;
   }
   
   void draw() {
     int NUM_DAYS = GregorianCal.numDaysIn(config.year());
-    LongTermPrecession precession = new LongTermPrecession();
-    double obliquity = precession.obliquity(GregorianCal.jd(config.year(), 7, 1)); //mid-year, fairly constant; rads
     LocalDateTime day = LocalDateTime.of(config.year(), Month.JANUARY, 1, HOUR_OF_DAY, 0, 0);
     LogUtil.log("Sun's position at 18h standard time (for the location), for each day:");
-    SolarPosition sun = new SolarPosition();
     for(int i = 1; i <= NUM_DAYS; ++i) {
       double jd = GregorianCal.jdForLocal(day.getYear(), day.getMonthValue(), day.getDayOfMonth(), HOUR_OF_DAY, 0, 0, 0, config.hoursOffsetFromUT(), config.minutesOffsetFromUT());
       if (i == 1) {
         LogUtil.log("Starting date-time: " + day + " JD:" + jd);
       }
-      Position apparentPos = sun.apparentPosition(jd, obliquity);
+      Position apparentPos = ephemeris.position(Body.Sun, jd);
       LogUtil.log("  " + day + ": " + apparentPos);
       drawSunDot(apparentPos, day);
       day = day.plusDays(1); 
@@ -56,6 +54,7 @@ final class SunMarks {
   private Projection projection;
   private Graphics2D g;
   private Config config;
+  private EphemerisMemo ephemeris;
   
   private void drawSunDot(Position pos, LocalDateTime localDate) {
     Point2D.Double where = projection.project(pos.δ, pos.α); 
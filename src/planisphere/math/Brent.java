@@ -0,0 +1,101 @@
+package planisphere.math;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ Brent's method for the root of a function of one variable.
+
+ <P>The root must be bracketed: the function must have opposite signs at the ends of the interval.
+ Each step uses inverse quadratic interpolation or the secant method when they behave well,
+ and falls back to bisection when they don't. So it converges quickly for smooth functions,
+ but is never slower than bisection. No derivatives are needed.
+*/
+public final class Brent {
+
+  /**
+   Return an x in [a, b] at which the function is 0.
+   @param fa the value of the function at a, if already known
+   @param fb the value of the function at b, if already known; must have the opposite sign to fa, or be 0.
+   @param tolerance the accuracy of the returned root; must be positive.
+  */
+  public static double root(DoubleUnaryOperator f, double a, double b, double fa, double fb, double tolerance) {
+    if (tolerance <= 0) {
+      throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+    }
+    if ((fa > 0 && fb > 0) || (fa < 0 && fb < 0)) {
+      throw new IllegalArgumentException("The root is not bracketed: f(" + a + ") = " + fa + ", f(" + b + ") = " + fb);
+    }
+    //b is the best estimate so far; the root is always between b and c; a is the previous value of b
+    double c = b;
+    double fc = fb;
+    double d = b - a; //the latest step
+    double e = d; //the step before that
+    for(int i = 0; i < MAX_ITERATIONS; ++i) {
+      if ((fb > 0 && fc > 0) || (fb < 0 && fc < 0)) {
+        c = a;
+        fc = fa;
+        d = b - a;
+        e = d;
+      }
+      if (Math.abs(fc) < Math.abs(fb)) {
+        a = b;
+        b = c;
+        c = a;
+        fa = fb;
+        fb = fc;
+        fc = fa;
+      }
+      double tol = 2.0 * Math.ulp(b) + 0.5 * tolerance;
+      double m = 0.5 * (c - b);
+      if (Math.abs(m) <= tol || fb == 0.0) {
+        return b;
+      }
+      if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+        double s = fb / fa;
+        double p = 0.0;
+        double q = 0.0;
+        if (a == c) {
+          //secant
+          p = 2.0 * m * s;
+          q = 1.0 - s;
+        }
+        else {
+          //inverse quadratic interpolation
+          double r = fb / fc;
+          q = fa / fc;
+          p = s * (2.0 * m * q * (q - r) - (b - a) * (r - 1.0));
+          q = (q - 1.0) * (r - 1.0) * (s - 1.0);
+        }
+        if (p > 0) {
+          q = -q;
+        }
+        else {
+          p = -p;
+        }
+        if (2.0 * p < Math.min(3.0 * m * q - Math.abs(tol * q), Math.abs(e * q))) {
+          e = d;
+          d = p / q;
+        }
+        else {
+          d = m;
+          e = m;
+        }
+      }
+      else {
+        d = m;
+        e = m;
+      }
+      a = b;
+      fa = fb;
+      b = b + (Math.abs(d) > tol ? d : Math.copySign(tol, m));
+      fb = f.applyAsDouble(b);
+    }
+    throw new RuntimeException("Brent's method didn't converge after " + MAX_ITERATIONS + " iterations.");
+  }
+
+  // PRIVATE
+
+  private static final int MAX_ITERATIONS = 100;
+
+  private Brent() {}
+}
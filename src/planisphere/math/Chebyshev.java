@@ -0,0 +1,154 @@
+package planisphere.math;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ A Chebyshev series, approximating a smooth function over a fixed interval.
+
+ <P>For a smooth function, the coefficients fall off quickly, and a handful of them is often enough to reproduce
+ the function to the limits of double precision. Evaluating the series is then much cheaper than evaluating
+ the original function, if the original is an expensive sum of many periodic terms.
+
+ <P>The series is evaluated with the Clenshaw recurrence, which is stable, and never computes the polynomials themselves.
+ Immutable.
+*/
+public final class Chebyshev {
+
+  /**
+   Fit a series to the given function, by sampling it at the Chebyshev nodes.
+   @param f the function to approximate
+   @param a start of the interval
+   @param b end of the interval; must be greater than a.
+   @param numCoefficients the number of terms in the series; the degree of the polynomial is one less than this.
+  */
+  public static Chebyshev fit(DoubleUnaryOperator f, double a, double b, int numCoefficients) {
+    double[] nodes = nodes(a, b, numCoefficients);
+    double[] values = new double[nodes.length];
+    for(int k = 0; k < nodes.length; ++k) {
+      values[k] = f.applyAsDouble(nodes[k]);
+    }
+    return fromValues(a, b, values);
+  }
+  
+  /**
+   The points in the interval at which a function is sampled, to fit a series with the given number of coefficients.
+   Useful when several functions share the same expensive calculation at each point: sample them all 
+   at these points, then pass the values to {@link #fromValues(double, double, double[])}. 
+  */
+  public static double[] nodes(double a, double b, int numCoefficients) {
+    if (numCoefficients < 1) {
+      throw new IllegalArgumentException("Need at least 1 coefficient: " + numCoefficients);
+    }
+    int n = numCoefficients;
+    double[] result = new double[n];
+    for(int k = 0; k < n; ++k) {
+      double t = Math.cos(Math.PI * (k + 0.5) / n);
+      result[k] = x(t, a, b);
+    }
+    return result;
+  }
+  
+  /**
+   Fit a series to the values of a function at the points returned by {@link #nodes(double, double, int)}.
+   The number of coefficients is the number of values.
+  */
+  public static Chebyshev fromValues(double a, double b, double[] values) {
+    int n = values.length;
+    double[] coefficients = new double[n];
+    for(int j = 0; j < n; ++j) {
+      double sum = 0.0;
+      for(int k = 0; k < n; ++k) {
+        sum = sum + values[k] * Math.cos(Math.PI * j * (k + 0.5) / n);
+      }
+      coefficients[j] = 2.0 * sum / n;
+    }
+    return new Chebyshev(a, b, coefficients);
+  }
+
+  /**
+   Constructor, for coefficients computed elsewhere.
+   @param coefficients c<sub>0</sub>..c<sub>n-1</sub>; the first term of the series is c<sub>0</sub>/2.
+  */
+  public Chebyshev(double a, double b, double[] coefficients) {
+    if (!(b > a)) {
+      throw new IllegalArgumentException("The end of the interval must be greater than the start: " + a + " " + b);
+    }
+    if (coefficients.length == 0) {
+      throw new IllegalArgumentException("Need at least 1 coefficient.");
+    }
+    this.a = a;
+    this.b = b;
+    this.coefficients = coefficients.clone();
+  }
+
+  /**
+   Evaluate the series at the given point, with the Clenshaw recurrence.
+   @param x must be in the interval of the fit.
+  */
+  public double value(double x) {
+    if (x < a || x > b) {
+      throw new IllegalArgumentException("Outside the interval [" + a + ", " + b + "]: " + x);
+    }
+    double t = (2.0 * x - a - b) / (b - a);
+    return value(coefficients, 0, coefficients.length, t);
+  }
+  
+  /**
+   Evaluate a series stored in part of a larger array, with the Clenshaw recurrence.
+   For callers that keep many series in a single array, without creating an object for each one.
+   @param coefficients c<sub>0</sub>..c<sub>n-1</sub> start at the given offset.
+   @param t in the range -1..+1, mapped from the interval of the series.
+  */
+  public static double value(double[] coefficients, int offset, int numCoefficients, double t) {
+    double twoT = 2.0 * t;
+    double b1 = 0.0;
+    double b2 = 0.0;
+    for(int j = offset + numCoefficients - 1; j >= offset + 1; --j) {
+      double temp = b1;
+      b1 = twoT * b1 - b2 + coefficients[j];
+      b2 = temp;
+    }
+    return t * b1 - b2 + coefficients[offset] / 2.0;
+  }
+
+  /**
+   The largest difference between this series and the given function,
+   sampled at equally-spaced points across the interval, including both ends.
+  */
+  public double maxError(DoubleUnaryOperator f, int numSamples) {
+    double result = 0.0;
+    for(int i = 0; i < numSamples; ++i) {
+      double x = numSamples == 1 ? a : a + (b - a) * i / (numSamples - 1);
+      result = Math.max(result, Math.abs(value(x) - f.applyAsDouble(x)));
+    }
+    return result;
+  }
+
+  /** Start of the interval. */
+  public double start() { return a; }
+
+  /** End of the interval. */
+  public double end() { return b; }
+
+  /** A copy of the coefficients. */
+  public double[] coefficients() {
+    return coefficients.clone();
+  }
+
+  /** Debugging only. */
+  @Override public String toString() {
+    return "[" + a + ", " + b + "] " + Arrays.toString(coefficients);
+  }
+
+  // PRIVATE
+
+  private final double a;
+  private final double b;
+  private final double[] coefficients;
+
+  /** Map -1..+1 onto the interval. */
+  private static double x(double t, double a, double b) {
+    return 0.5 * (b - a) * t + 0.5 * (b + a);
+  }
+}
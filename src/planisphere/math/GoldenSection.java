@@ -0,0 +1,53 @@
+package planisphere.math;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ Golden-section search for the maximum of a function of one variable.
+
+ <P>The function must be unimodal in the given interval: increasing, then decreasing.
+ Each step shrinks the interval by the same factor (about 0.618), with only one new evaluation of the function.
+ No derivatives are needed.
+*/
+public final class GoldenSection {
+
+  /**
+   Return the x at which the function has its maximum, in the interval [a, b].
+   @param tolerance the width of the final interval; must be positive.
+  */
+  public static double maximum(DoubleUnaryOperator f, double a, double b, double tolerance) {
+    if (tolerance <= 0) {
+      throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+    }
+    double lo = Math.min(a, b);
+    double hi = Math.max(a, b);
+    double x1 = hi - INV_PHI * (hi - lo);
+    double x2 = lo + INV_PHI * (hi - lo);
+    double f1 = f.applyAsDouble(x1);
+    double f2 = f.applyAsDouble(x2);
+    while (hi - lo > tolerance) {
+      if (f1 >= f2) {
+        hi = x2;
+        x2 = x1;
+        f2 = f1;
+        x1 = hi - INV_PHI * (hi - lo);
+        f1 = f.applyAsDouble(x1);
+      }
+      else {
+        lo = x1;
+        x1 = x2;
+        f1 = f2;
+        x2 = lo + INV_PHI * (hi - lo);
+        f2 = f.applyAsDouble(x2);
+      }
+    }
+    return (lo + hi) / 2.0;
+  }
+
+  // PRIVATE
+
+  /** 1/φ = 0.618... */
+  private static final double INV_PHI = (Math.sqrt(5.0) - 1.0) / 2.0;
+
+  private GoldenSection() {}
+}